@@ -1,6 +1,13 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * ASCIIConverter converts between a binary DNA sequence and a DNA sequence
- * represented as characters.
+ * represented as characters. Each base takes 2 bits, A = 00, C = 01, G = 10
+ * and T = 11, four to a byte with the first base in the highest bits. Any
+ * other character is stored as an A. The conversions look bases up in
+ * tables, four to a byte at a time, and can work on byte arrays or
+ * ByteBuffers of ASCII characters as well as on strings.
  *
  * @author Ryan Maxey <ryanmaxey6>
  * @author Hannah Nguyen <hanguyen>
@@ -8,6 +15,44 @@
  */
 public class ASCIIConverter {
 
+    // the code of a character shifted into place for each base of a byte
+    private static final byte[] FIRST = new byte[256];
+    private static final byte[] SECOND = new byte[256];
+    private static final byte[] THIRD = new byte[256];
+    private static final byte[] FOURTH = new byte[256];
+    // the four characters of every byte
+    private static final byte[] BASES = new byte[256 * 4];
+
+    static
+    {
+        byte[] acgt = {'A', 'C', 'G', 'T'};
+        for (int code = 0; code < 4; code++)
+        {
+            int c = acgt[code];
+            FIRST[c] = (byte)(code << 6);
+            SECOND[c] = (byte)(code << 4);
+            THIRD[c] = (byte)(code << 2);
+            FOURTH[c] = (byte)code;
+        }
+        for (int b = 0; b < 256; b++)
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                BASES[b * 4 + i] = acgt[(b >> (6 - i * 2)) & 3];
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes that hold a number of bases.
+     * @param bases The number of bases
+     * @return The number of bytes
+     */
+    static int bytesFor(int bases)
+    {
+        return (int)((bases * 2L + 7) / 8);
+    }
+
     /**
      * Convert a DNA sequence from a string to a byte[].
      * @param sequence The DNA sequence as a string
@@ -15,92 +60,209 @@ public class ASCIIConverter {
      */
     public static byte[] acgtToBin(String sequence)
     {
-        int bitsNeeded = sequence.length() * 2;
-        int numBytes = (bitsNeeded / 8);
-        if (bitsNeeded % 8 != 0)
+        // characters past Latin-1 become '?', which is stored as an A like
+        // any other character that is not a base
+        byte[] ascii = sequence.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] result = new byte[bytesFor(ascii.length)];
+        encode(ascii, 0, ascii.length, result, 0);
+        return result;
+    }
+
+    /**
+     * Converts a DNA sequence from a byte[] to a string.
+     * @param sequence The DNA sequence as a byte[]
+     * @param seqLength The length of the DNA sequence in characters
+     * @return The DNA sequence as a string
+     */
+    public static String binToACGT(byte[] sequence, int seqLength)
+    {
+        if ((seqLength * 2L) > sequence.length * 8L)
         {
-            numBytes += 1;
+            System.out.println("Given sequence length is longer than the number"
+                + " of bytes");
+            return null;
         }
-        byte[] result = new byte[numBytes];
+        byte[] ascii = new byte[seqLength];
+        decode(sequence, 0, seqLength, ascii, 0);
+        return new String(ascii, StandardCharsets.ISO_8859_1);
+    }
 
-        for (int i = 0; i < sequence.length(); i++)
+    /**
+     * Packs ASCII bases into bytes, four to a byte. The first base goes into
+     * the highest bits of the first byte, and the bits of a last byte that
+     * is not filled are 0.
+     * @param ascii The bases as ASCII characters
+     * @param from The index of the first base in ascii
+     * @param count The number of bases
+     * @param packed The array to pack the bases into
+     * @param offset The index of the first byte to fill in packed
+     */
+    public static void encode(byte[] ascii, int from, int count,
+        byte[] packed, int offset)
+    {
+        int whole = count / 4;
+        int c = from;
+        for (int i = offset; i < offset + whole; i++)
         {
-            int shiftAmount = (6 - ((i % 4) * 2));
-            int bytePos = i / 4;
-
-            if (sequence.charAt(i) == 'A')
+            packed[i] = (byte)(FIRST[ascii[c] & 0xFF]
+                | SECOND[ascii[c + 1] & 0xFF] | THIRD[ascii[c + 2] & 0xFF]
+                | FOURTH[ascii[c + 3] & 0xFF]);
+            c += 4;
+        }
+        int left = count - whole * 4;
+        if (left > 0)
+        {
+            int last = FIRST[ascii[c] & 0xFF];
+            if (left > 1)
             {
-                // bits would be 00
-                byte mask = 0b00000000;
-                mask = (byte)(mask << shiftAmount);
-                result[bytePos] = (byte)(result[bytePos] | mask);
+                last |= SECOND[ascii[c + 1] & 0xFF];
             }
-            else if (sequence.charAt(i) == 'C')
+            if (left > 2)
             {
-                // bits would be 01
-                byte mask = 0b00000001;
-                mask = (byte)(mask << shiftAmount);
-                result[bytePos] = (byte)(result[bytePos] | mask);
+                last |= THIRD[ascii[c + 2] & 0xFF];
             }
-            else if (sequence.charAt(i) == 'G')
+            packed[offset + whole] = (byte)last;
+        }
+    }
+
+    /**
+     * Packs bases read as characters into bytes, four to a byte, like
+     * encode() does for ASCII bytes.
+     * @param chars The bases as characters
+     * @param from The index of the first base in chars
+     * @param count The number of bases
+     * @param packed The array to pack the bases into
+     * @param offset The index of the first byte to fill in packed
+     */
+    public static void encode(char[] chars, int from, int count,
+        byte[] packed, int offset)
+    {
+        int whole = count / 4;
+        int c = from;
+        for (int i = offset; i < offset + whole; i++)
+        {
+            packed[i] = (byte)(code(FIRST, chars[c])
+                | code(SECOND, chars[c + 1]) | code(THIRD, chars[c + 2])
+                | code(FOURTH, chars[c + 3]));
+            c += 4;
+        }
+        int left = count - whole * 4;
+        if (left > 0)
+        {
+            int last = code(FIRST, chars[c]);
+            if (left > 1)
             {
-                // bits would be 10
-                byte mask = 0b00000010;
-                mask = (byte)(mask << shiftAmount);
-                result[bytePos] = (byte)(result[bytePos] | mask);
+                last |= code(SECOND, chars[c + 1]);
             }
-            else if (sequence.charAt(i) == 'T')
+            if (left > 2)
             {
-                // bits would be 11
-                byte mask = 0b00000011;
-                mask = (byte)(mask << shiftAmount);
-                result[bytePos] = (byte)(result[bytePos] | mask);
+                last |= code(THIRD, chars[c + 2]);
             }
+            packed[offset + whole] = (byte)last;
         }
-        return result;
     }
 
     /**
-     * Converts a DNA sequence from a byte[] to a string.
-     * @param sequence The DNA sequence as a byte[]
-     * @param seqLength The length of the DNA sequence in characters
-     * @return The DNA sequence as a string
+     * Looks a character up in one of the code tables. Characters past the
+     * tables are not bases.
+     * @param table The table for the position of the base in its byte
+     * @param c The character
+     * @return The shifted code of the base
      */
-    public static String binToACGT(byte[] sequence, int seqLength)
+    private static int code(byte[] table, char c)
+    {
+        return c < table.length ? table[c] : 0;
+    }
+
+    /**
+     * Unpacks bytes into ASCII bases, four to a byte.
+     * @param packed The packed bases
+     * @param offset The index of the first byte to unpack in packed
+     * @param count The number of bases
+     * @param ascii The array to put the bases in
+     * @param from The index in ascii of the first base
+     */
+    public static void decode(byte[] packed, int offset, int count,
+        byte[] ascii, int from)
     {
-        if ((seqLength * 2) > sequence.length * 8)
+        int whole = count / 4;
+        int c = from;
+        for (int i = offset; i < offset + whole; i++)
         {
-            System.out.println("Given sequence length is longer than the number"
-                + " of bytes");
-            return null;
+            int at = (packed[i] & 0xFF) * 4;
+            ascii[c] = BASES[at];
+            ascii[c + 1] = BASES[at + 1];
+            ascii[c + 2] = BASES[at + 2];
+            ascii[c + 3] = BASES[at + 3];
+            c += 4;
         }
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < seqLength; i++)
+        int left = count - whole * 4;
+        if (left > 0)
         {
-            byte mask = 0b00000011;
-            int shiftAmount = (6 - ((i % 4) * 2));
-            int bytePos = i / 4;
-            byte currBits = (byte)(sequence[bytePos] >> shiftAmount);
-            currBits = (byte)(currBits & mask);
+            System.arraycopy(BASES, (packed[offset + whole] & 0xFF) * 4,
+                ascii, c, left);
+        }
+    }
 
-            if (currBits == 0b00000000)
-            {
-                result.append('A');
-            }
-            else if (currBits == 0b00000001)
+    /**
+     * Packs ASCII bases from one buffer into another, four to a byte. Both
+     * buffers are read and written from their positions, which are moved
+     * past the bases.
+     * @param ascii The bases as ASCII characters
+     * @param packed The buffer to pack the bases into
+     * @param count The number of bases
+     */
+    public static void encode(ByteBuffer ascii, ByteBuffer packed, int count)
+    {
+        if (ascii.hasArray() && packed.hasArray())
+        {
+            encode(ascii.array(), ascii.arrayOffset() + ascii.position(),
+                count, packed.array(), packed.arrayOffset()
+                + packed.position());
+            ascii.position(ascii.position() + count);
+            packed.position(packed.position() + bytesFor(count));
+            return;
+        }
+        for (int left = count; left > 0; left -= 4)
+        {
+            int b = FIRST[ascii.get() & 0xFF];
+            if (left > 1)
             {
-                result.append('C');
+                b |= SECOND[ascii.get() & 0xFF];
             }
-            else if (currBits == 0b00000010)
+            if (left > 2)
             {
-                result.append('G');
+                b |= THIRD[ascii.get() & 0xFF];
             }
-            else if (currBits == 0b00000011)
+            if (left > 3)
             {
-                result.append('T');
+                b |= FOURTH[ascii.get() & 0xFF];
             }
+            packed.put((byte)b);
         }
-        return result.toString();
     }
 
+    /**
+     * Unpacks bytes from one buffer into ASCII bases in another, four to a
+     * byte. Both buffers are read and written from their positions, which
+     * are moved past the bases.
+     * @param packed The packed bases
+     * @param ascii The buffer to put the bases in
+     * @param count The number of bases
+     */
+    public static void decode(ByteBuffer packed, ByteBuffer ascii, int count)
+    {
+        if (ascii.hasArray() && packed.hasArray())
+        {
+            decode(packed.array(), packed.arrayOffset() + packed.position(),
+                count, ascii.array(), ascii.arrayOffset() + ascii.position());
+            ascii.position(ascii.position() + count);
+            packed.position(packed.position() + bytesFor(count));
+            return;
+        }
+        for (int left = count; left > 0; left -= 4)
+        {
+            ascii.put(BASES, (packed.get() & 0xFF) * 4, Math.min(left, 4));
+        }
+    }
 }
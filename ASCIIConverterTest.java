@@ -1,4 +1,6 @@
 import student.TestCase;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Tests the methods of ASCIIConverter.
@@ -49,4 +51,52 @@ public class ASCIIConverterTest extends TestCase {
         assertEquals("ACGTATCGAT", result);
     }
 
+    /**
+     * tests that the bulk conversions pack and unpack every length of last
+     * byte, at offsets, and that other characters are stored as As
+     */
+    public void testBulk()
+    {
+        String sequence = "GATTACACATGN";
+        for (int count = 0; count <= 10; count++)
+        {
+            byte[] packed = new byte[4];
+            ASCIIConverter.encode(sequence.getBytes(), 1, count, packed, 1);
+            assertEquals(packed[0], 0);
+            byte[] ascii = new byte[count + 2];
+            ASCIIConverter.decode(packed, 1, count, ascii, 2);
+            assertEquals(new String(ascii, 2, count),
+                sequence.substring(1, 1 + count));
+        }
+        assertEquals(ASCIIConverter.binToACGT(
+            ASCIIConverter.acgtToBin("CxGTN"), 5), "CAGTA");
+        assertNull(ASCIIConverter.binToACGT(new byte[1], 5));
+    }
+
+    /**
+     * tests the bulk conversions between direct and heap buffers
+     */
+    public void testBuffers()
+    {
+        String sequence = "TTGACCGTA";
+        ByteBuffer ascii = ByteBuffer.allocateDirect(9);
+        ascii.put(sequence.getBytes()).flip();
+        ByteBuffer packed = ByteBuffer.allocate(3);
+        ASCIIConverter.encode(ascii, packed, 9);
+        assertEquals(packed.position(), 3);
+        assertTrue(Arrays.equals(packed.array(),
+            ASCIIConverter.acgtToBin(sequence)));
+
+        packed.flip();
+        ByteBuffer direct = ByteBuffer.allocateDirect(3);
+        direct.put(packed).flip();
+        ascii.clear();
+        ASCIIConverter.decode(direct, ascii, 9);
+        assertEquals(ascii.position(), 9);
+        byte[] bases = new byte[9];
+        ascii.flip();
+        ascii.get(bases);
+        assertEquals(new String(bases), sequence);
+    }
+
 }
@@ -0,0 +1,40 @@
+import java.util.NavigableMap;
+
+/**
+ * An AllocationPolicy picks the free block of the memory file that a new
+ * sequence is stored in. A MemoryManager is given its policy when it is
+ * constructed. A policy may keep its own index of the free blocks; the
+ * FreeBlockList tells it about every block that is added or removed, and
+ * never changes a block while the policy has it.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public interface AllocationPolicy {
+
+    /**
+     * Picks a free block for the given number of bytes.
+     * @param blocks The free blocks, keyed and ordered by file offset
+     * @param bytes The number of bytes needed
+     * @return A free block at least that long, or null if there is none
+     */
+    Pair fit(NavigableMap<Long, Pair> blocks, long bytes);
+
+    /**
+     * Tells the policy about a block that became free.
+     * @param block The free block
+     */
+    void add(Pair block);
+
+    /**
+     * Tells the policy about a block that is no longer free.
+     * @param block The block
+     */
+    void remove(Pair block);
+
+    /**
+     * Tells the policy that there are no free blocks left.
+     */
+    void clear();
+}
@@ -0,0 +1,131 @@
+import student.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Tests the AllocationPolicy implementations through FreeBlockList
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class AllocationPolicyTest extends TestCase {
+
+    /**
+     * Makes a free block list with blocks of 8, 3, 20 and 3 bytes and gaps
+     * between them.
+     * @param policy The policy of the list
+     * @return The free block list
+     */
+    private FreeBlockList blocks(AllocationPolicy policy)
+    {
+        FreeBlockList list = new FreeBlockList(policy);
+        list.free(0, 8);
+        list.free(10, 3);
+        list.free(20, 20);
+        list.free(50, 3);
+        return list;
+    }
+
+    /**
+     * tests that best fit takes the smallest block that fits
+     */
+    public void testBestFit() {
+        FreeBlockList list = blocks(new BestFit());
+        assertEquals(list.allocate(3), 10);
+        assertEquals(list.allocate(4), 0);
+        assertEquals(list.allocate(10), 20);
+        assertEquals(list.allocate(11), -1);
+    }
+
+    /**
+     * tests that first fit takes the first block in the file that fits
+     */
+    public void testFirstFit() {
+        FreeBlockList list = blocks(new FirstFit());
+        assertEquals(list.allocate(3), 0);
+        assertEquals(list.allocate(3), 3);
+        assertEquals(list.allocate(3), 10);
+        assertEquals(list.allocate(9), 20);
+    }
+
+    /**
+     * tests that next fit carries on from the last block it used and wraps
+     * around to the start of the file
+     */
+    public void testNextFit() {
+        FreeBlockList list = blocks(new NextFit());
+        assertEquals(list.allocate(3), 0);
+        assertEquals(list.allocate(3), 3);
+        assertEquals(list.allocate(3), 10);
+        assertEquals(list.allocate(3), 20);
+        assertEquals(list.allocate(3), 23);
+        assertEquals(list.allocate(3), 26);
+        assertEquals(list.allocate(14), -1);
+        assertEquals(list.allocate(2), 29);
+        assertEquals(list.allocate(5), 31);
+        assertEquals(list.allocate(3), 36);
+        assertEquals(list.allocate(2), 50);
+        // nothing after 52 fits, so the search wraps around
+        assertEquals(list.allocate(2), 6);
+        list.clear();
+        assertEquals(list.allocate(1), -1);
+    }
+
+    /**
+     * tests that segregated fit takes a block of the size class of the
+     * sequence before a block of a larger class
+     */
+    public void testSegregatedFit() {
+        assertEquals(SegregatedFit.sizeClass(0), 0);
+        assertEquals(SegregatedFit.sizeClass(1), 0);
+        assertEquals(SegregatedFit.sizeClass(3), 1);
+        assertEquals(SegregatedFit.sizeClass(8), 3);
+        assertEquals(SegregatedFit.sizeClass(20), 4);
+
+        FreeBlockList list = blocks(new SegregatedFit());
+        // 3 bytes are in class 1 along with both 3 byte blocks
+        assertEquals(list.allocate(3), 10);
+        assertEquals(list.allocate(2), 50);
+        // the 1 byte left at 52 is in class 0
+        assertEquals(list.allocate(1), 52);
+        // no class 1 block is left, so the 8 byte block of class 3 is used
+        assertEquals(list.allocate(2), 0);
+        assertEquals(list.allocate(17), 20);
+        assertEquals(list.allocate(7), -1);
+        assertEquals(list.freeBytes(), 9);
+    }
+
+    /**
+     * tests that the memory manager uses its policy and prints its
+     * fragmentation
+     * @throws IOException
+     */
+    public void testStats() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream old = System.out;
+        System.setOut(new PrintStream(out));
+
+        MemoryManager mem = new MemoryManager("policy_mem.bin", 32, false,
+            new FirstFit());
+        Handle a = mem.insertSeq("AAAAAAAAAAAA", 32);
+        Handle b = mem.insertSeq("CCCC", 32);
+        mem.insertSeq("GGGGGGGG", 32);
+        mem.removeSeq(a);
+        mem.removeSeq(b);
+        assertEquals(mem.insertSeq("TTTT", 32).getFileLocation(), 0);
+        mem.printStats();
+        mem.close();
+        new File("policy_mem.bin").delete();
+        System.setOut(old);
+
+        String stats = out.toString();
+        assertTrue(stats.contains("File Size 6 bytes, Free 3 bytes in 1 "
+            + "blocks, Largest Free Block 3 bytes"));
+        assertTrue(stats.contains("Fragmentation: 0.00%, Allocations: 4 "
+            + "(1 from free blocks), Removals: 2"));
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+
+/**
+ * BestFit stores a sequence in the smallest free block it fits in, taking
+ * the first in the file of blocks of the same size. The blocks are kept
+ * ordered by size, so a fit is found in logarithmic time. This is the
+ * policy MemoryManager uses unless it is given another.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class BestFit implements AllocationPolicy {
+
+    private TreeSet<Pair> bySize;
+
+    /**
+     * Creates a BestFit policy with no free blocks.
+     */
+    public BestFit()
+    {
+        bySize = new TreeSet<Pair>(new Comparator<Pair>() {
+            public int compare(Pair a, Pair b) {
+                if (a.getLength() != b.getLength()) {
+                    return Long.compare(a.getLength(), b.getLength());
+                }
+                return Long.compare(a.getFileOffset(), b.getFileOffset());
+            }
+        });
+    }
+
+    /**
+     * Picks the smallest free block that is big enough.
+     * @param blocks The free blocks, keyed and ordered by file offset
+     * @param bytes The number of bytes needed
+     * @return The best fitting block, or null if there is none
+     */
+    public Pair fit(NavigableMap<Long, Pair> blocks, long bytes)
+    {
+        return bySize.ceiling(new Pair(Long.MIN_VALUE, bytes));
+    }
+
+    /**
+     * Tells the policy about a block that became free.
+     * @param block The free block
+     */
+    public void add(Pair block)
+    {
+        bySize.add(block);
+    }
+
+    /**
+     * Tells the policy about a block that is no longer free.
+     * @param block The block
+     */
+    public void remove(Pair block)
+    {
+        bySize.remove(block);
+    }
+
+    /**
+     * Tells the policy that there are no free blocks left.
+     */
+    public void clear()
+    {
+        bySize.clear();
+    }
+}
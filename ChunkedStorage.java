@@ -0,0 +1,188 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * ChunkedStorage keeps the memory file in buffers of a fixed size, which
+ * are added as the file grows into them. Reads and writes that cross the
+ * end of a chunk are split between the chunks they touch. Where a chunk
+ * comes from is left to the subclass: DirectStorage allocates it off the
+ * heap and MappedStorage maps it from the file.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public abstract class ChunkedStorage implements Storage {
+
+    /**
+     * The size of a chunk unless another is given: 1 MiB
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private int chunkSize;
+    // readers do not lock, so a grown array of chunks is put in place
+    // before the length that needs it
+    private volatile ByteBuffer[] chunks;
+    private volatile long length;
+
+    /**
+     * Creates an empty storage with no chunks.
+     * @param chunkSize The number of bytes in a chunk
+     */
+    protected ChunkedStorage(int chunkSize)
+    {
+        this.chunkSize = chunkSize;
+        chunks = new ByteBuffer[0];
+    }
+
+    /**
+     * Gets a new chunk.
+     * @param index The number of the chunk, counted from the start of the
+     * file
+     * @return A buffer of the chunk size for the chunk
+     * @throws IOException
+     */
+    protected abstract ByteBuffer newChunk(int index) throws IOException;
+
+    /**
+     * Takes bytes that are already there, such as those of a file that is
+     * opened again, as the contents of the storage.
+     * @param existing The number of bytes there are
+     * @throws IOException
+     */
+    protected synchronized void open(long existing) throws IOException
+    {
+        reach(existing);
+        length = existing;
+    }
+
+    /**
+     * Adds chunks until the storage reaches the given location.
+     * @param end The location the chunks have to reach
+     * @throws IOException
+     */
+    private void reach(long end) throws IOException
+    {
+        ByteBuffer[] added = chunks;
+        int needed = (int)((end + chunkSize - 1) / chunkSize);
+        if (needed <= added.length)
+        {
+            return;
+        }
+        ByteBuffer[] grown = Arrays.copyOf(added, needed);
+        for (int i = added.length; i < needed; i++)
+        {
+            grown[i] = newChunk(i);
+        }
+        chunks = grown;
+    }
+
+    /**
+     * Lets go of the chunks that lie wholly past the given location.
+     * @param end The location the chunks have to reach
+     */
+    protected synchronized void dropChunks(long end)
+    {
+        int needed = (int)((end + chunkSize - 1) / chunkSize);
+        if (needed < chunks.length)
+        {
+            chunks = Arrays.copyOf(chunks, needed);
+        }
+    }
+
+    /**
+     * Gets the size of a chunk.
+     * @return The number of bytes in a chunk
+     */
+    protected int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Gets the chunks added so far.
+     * @return The chunks, in file order
+     */
+    protected ByteBuffer[] chunks()
+    {
+        return chunks;
+    }
+
+    /**
+     * Fills a byte array from a location, chunk by chunk.
+     * @param result The array to fill
+     * @param loc The location of the first byte
+     */
+    public void read(byte[] result, long loc)
+    {
+        long end = Math.min(loc + result.length, length);
+        ByteBuffer[] added = chunks;
+        long pos = loc;
+        while (pos < end)
+        {
+            int offset = (int)(pos % chunkSize);
+            int count = (int)Math.min(chunkSize - offset, end - pos);
+            added[(int)(pos / chunkSize)].get(offset, result,
+                (int)(pos - loc), count);
+            pos += count;
+        }
+        if (pos < loc + result.length)
+        {
+            Arrays.fill(result, (int)(pos - loc), result.length, (byte)0);
+        }
+    }
+
+    /**
+     * Writes a byte array at a location, adding chunks if the storage
+     * grows.
+     * @param bytes The bytes to write
+     * @param loc The location of the first byte
+     * @throws IOException
+     */
+    public synchronized void write(byte[] bytes, long loc) throws IOException
+    {
+        long end = loc + bytes.length;
+        reach(end);
+        ByteBuffer[] added = chunks;
+        long pos = loc;
+        while (pos < end)
+        {
+            int offset = (int)(pos % chunkSize);
+            int count = (int)Math.min(chunkSize - offset, end - pos);
+            added[(int)(pos / chunkSize)].put(offset, bytes,
+                (int)(pos - loc), count);
+            pos += count;
+        }
+        if (end > length)
+        {
+            length = end;
+        }
+    }
+
+    /**
+     * Gets the number of bytes stored.
+     * @return The length of the memory file
+     */
+    public long length()
+    {
+        return length;
+    }
+
+    /**
+     * Cuts the memory file off or extends it with 0s. The chunks are kept,
+     * and the bytes past the end are only read as 0s until they are written
+     * again.
+     * @param newLength The new length of the memory file
+     * @throws IOException
+     */
+    public synchronized void setLength(long newLength) throws IOException
+    {
+        if (newLength > length)
+        {
+            // the bytes past the old end may still hold what was cut off
+            write(new byte[(int)(newLength - length)], length);
+        }
+        length = newLength;
+    }
+}
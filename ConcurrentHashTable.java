@@ -0,0 +1,576 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A HashTable that many threads can use at once. The buckets are split into
+ * stripes, each with its own lock, so inserts, searches and removes of keys
+ * in different stripes run side by side. The stripe of a bucket is the bucket
+ * modulo the number of stripes, and the number of stripes divides the number
+ * of buckets. When the table doubles, a key therefore stays in its stripe,
+ * and the two buckets that an old bucket is moved into share its lock.
+ * Growing the table, printing it and the other operations on every entry
+ * take a lock that keeps all other operations out.
+ *
+ * Searches take no lock at all. Every stripe, and the table as a whole, has
+ * a version that changes while it is written to. A search reads the versions,
+ * probes, and keeps its result only if neither version changed in between;
+ * after a few failed tries it locks the stripe instead.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ *
+ * @param <K> The key
+ * @param <V> The value
+ */
+public class ConcurrentHashTable<K, V extends SequenceBundle>
+    extends HashTable<K, V> {
+
+    /**
+     * The number of lock-free tries a search makes before it locks its stripe
+     */
+    private static final int OPTIMISTIC_TRIES = 4;
+    // the locks keep writers apart; the versions let readers detect them
+    private final ReentrantLock[] stripes;
+    private final StampedLock[] versions;
+    private final ReentrantReadWriteLock whole;
+    private final StampedLock wholeVersion;
+
+    /**
+     * Creates a new ConcurrentHashTable with the given capacity.
+     *
+     * @param theClass The class of the V object
+     * @param capacity The capacity of the HashTable
+     * @param m The MemoryManager to use
+     * @param hash The hash function that gives the home slot of a key
+     * @param stripeCount The most locks to split the buckets between; it is
+     * rounded down until it is a power of two that divides the number of
+     * buckets
+     */
+    public ConcurrentHashTable(Class<V> theClass, int capacity,
+        MemoryManager m, HashFunction hash, int stripeCount)
+    {
+        this(new ObjectSlots<V>(theClass, capacity), m, hash, stripeCount);
+    }
+
+    /**
+     * Creates a new ConcurrentHashTable that keeps its entries in the given
+     * slots.
+     *
+     * @param slots The slots of the HashTable
+     * @param m The MemoryManager to use
+     * @param hash The hash function that gives the home slot of a key
+     * @param stripeCount The most locks to split the buckets between
+     */
+    public ConcurrentHashTable(SlotArray<V> slots, MemoryManager m,
+        HashFunction hash, int stripeCount)
+    {
+        super(slots, m, hash);
+        int count = Integer.highestOneBit(Math.max(stripeCount, 1));
+        while (buckets(slots.capacity()) % count != 0)
+        {
+            count /= 2;
+        }
+        stripes = new ReentrantLock[count];
+        versions = new StampedLock[count];
+        for (int i = 0; i < count; i++)
+        {
+            stripes[i] = new ReentrantLock();
+            versions[i] = new StampedLock();
+        }
+        whole = new ReentrantReadWriteLock();
+        wholeVersion = new StampedLock();
+    }
+
+    /**
+     * Gets the number of locks the buckets are split between.
+     * @return The number of stripes
+     */
+    public int stripes()
+    {
+        return stripes.length;
+    }
+
+    /**
+     * Locks the stripe of a key, keeping the table from growing until it is
+     * unlocked.
+     * @param key The key
+     * @param writing True if the stripe is about to be changed, which moves
+     * its version on
+     * @return The stripe
+     */
+    private int lock(String key, boolean writing)
+    {
+        whole.readLock().lock();
+        int stripe = bucketOf(key) % stripes.length;
+        stripes[stripe].lock();
+        if (writing)
+        {
+            versions[stripe].writeLock();
+        }
+        return stripe;
+    }
+
+    /**
+     * Unlocks a stripe locked by lock().
+     * @param stripe The stripe
+     */
+    private void unlock(int stripe)
+    {
+        versions[stripe].tryUnlockWrite();
+        stripes[stripe].unlock();
+        whole.readLock().unlock();
+    }
+
+    /**
+     * Locks the whole table, keeping every other operation out.
+     */
+    private void lockWhole()
+    {
+        whole.writeLock().lock();
+        wholeVersion.writeLock();
+    }
+
+    /**
+     * Unlocks the table locked by lockWhole().
+     */
+    private void unlockWhole()
+    {
+        wholeVersion.tryUnlockWrite();
+        whole.writeLock().unlock();
+    }
+
+    /**
+     * Grows the table, with every stripe kept out, if an insert found that
+     * it has to.
+     * @param wait True to wait for a thread that is already growing the
+     * table, as a key whose bucket was full has to
+     * @throws IOException
+     */
+    private void growIfDueExclusively(boolean wait) throws IOException
+    {
+        if (!wait && !isGrowthDue())
+        {
+            return;
+        }
+        lockWhole();
+        try
+        {
+            growIfDue();
+        }
+        finally
+        {
+            unlockWhole();
+        }
+    }
+
+    /**
+     * Inserts hold the lock of a stripe, which cannot be traded for the lock
+     * on the whole table, so they leave the growing to their callers.
+     * @return False
+     */
+    @Override
+    protected boolean growsInline()
+    {
+        return false;
+    }
+
+    /**
+     * Moves a bucket of the old table if its stripe is not in use by another
+     * thread. A thread never waits for a second stripe, so two threads that
+     * sweep each other's stripes cannot block each other.
+     * @param bucket The bucket of the old table to move
+     * @throws IOException
+     */
+    @Override
+    protected void sweep(int bucket) throws IOException
+    {
+        int stripe = bucket % stripes.length;
+        if (stripes[stripe].isHeldByCurrentThread())
+        {
+            moveBucket(bucket);
+        }
+        else if (stripes[stripe].tryLock())
+        {
+            versions[stripe].writeLock();
+            try
+            {
+                moveBucket(bucket);
+            }
+            finally
+            {
+                versions[stripe].tryUnlockWrite();
+                stripes[stripe].unlock();
+            }
+        }
+    }
+
+    /**
+     * Reserves a slot for a key, growing the table for as long as its bucket
+     * is full and growing splits it. Other threads can fill the bucket again
+     * between a growth and the next probe, so one growth is not enough.
+     * @param k The key to insert
+     * @return A Reservation of the slot
+     * @throws IOException
+     */
+    private Reservation reserveGrowing(String k) throws IOException
+    {
+        while (true)
+        {
+            int before;
+            Reservation r;
+            int stripe = lock(k, true);
+            try
+            {
+                before = capacity();
+                r = reserve(k);
+            }
+            finally
+            {
+                unlock(stripe);
+            }
+
+            if (r.getStatus() != Reservation.Status.BUCKET_FULL
+                || !isGrowable())
+            {
+                return r;
+            }
+            growIfDueExclusively(true);
+            if (capacity() == before)
+            {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry associated with the given key from the hash table
+     * @param key The key of the entry to remove
+     * @return The value of the removed entry if found; null otherwise
+     * @throws IOException
+     */
+    @Override
+    public V remove(K key) throws IOException
+    {
+        int stripe = lock(key.toString(), true);
+        try
+        {
+            return super.remove(key);
+        }
+        finally
+        {
+            unlock(stripe);
+        }
+    }
+
+    /**
+     * Determines if neither a stripe nor the table was written to since a
+     * search read their versions.
+     * @param version The version of the stripe
+     * @param stamp The stamp of the stripe
+     * @param tableStamp The stamp of the table
+     * @return True if the search saw a table no one was changing
+     */
+    private boolean unchanged(StampedLock version, long stamp,
+        long tableStamp)
+    {
+        return version.validate(stamp) && wholeVersion.validate(tableStamp);
+    }
+
+    /**
+     * Searches the hash table for the entries corresponding with the given
+     * key without locking it. A search that overlaps a change to its stripe
+     * may read slots that are half written, or even fail; either way its
+     * result is thrown away and the search is tried again.
+     * @param key The key to search for
+     * @return The value associated with the key if there is one; null
+     * otherwise
+     * @throws IOException
+     */
+    @Override
+    public V get(K key) throws IOException
+    {
+        String k = key.toString();
+        for (int i = 0; i < OPTIMISTIC_TRIES; i++)
+        {
+            long tableStamp = wholeVersion.tryOptimisticRead();
+            StampedLock version = versions[bucketOf(k) % versions.length];
+            long stamp = version.tryOptimisticRead();
+            if (tableStamp == 0 || stamp == 0)
+            {
+                // a writer holds the stripe right now
+                Thread.onSpinWait();
+                continue;
+            }
+            try
+            {
+                V found = super.get(key);
+                if (unchanged(version, stamp, tableStamp))
+                {
+                    return found;
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                if (unchanged(version, stamp, tableStamp))
+                {
+                    throw e;
+                }
+            }
+        }
+
+        int stripe = lock(k, false);
+        try
+        {
+            return super.get(key);
+        }
+        finally
+        {
+            unlock(stripe);
+        }
+    }
+
+    /**
+     * Searches the hash table for the entry with the given key and writes
+     * its sequence out. The stripe is locked, since a search that has
+     * written out a sequence cannot be thrown away and tried again.
+     * @param key The key to search for
+     * @param header The bytes to write before the sequence if it is found
+     * @param out The stream to write the sequence to, or null
+     * @return The value associated with the key if there is one; null
+     * otherwise
+     * @throws IOException
+     */
+    @Override
+    public V search(K key, byte[] header, OutputStream out)
+        throws IOException
+    {
+        if (out == null)
+        {
+            return get(key);
+        }
+        int stripe = lock(key.toString(), false);
+        try
+        {
+            return super.search(key, header, out);
+        }
+        finally
+        {
+            unlock(stripe);
+        }
+    }
+
+    /**
+     * Determines if the given key can be inserted into the hash table.
+     * @param key The key to insert
+     * @return True if the key could be inserted at the time of the call
+     * @throws IOException
+     */
+    @Override
+    public boolean canInsert(K key) throws IOException
+    {
+        int stripe = lock(key.toString(), true);
+        try
+        {
+            return super.canInsert(key);
+        }
+        finally
+        {
+            unlock(stripe);
+        }
+    }
+
+    /**
+     * Inserts the value associated with the key into the hash table.
+     * @param key The key to determine where to place the value
+     * @param value The value to place in the hash table
+     * @return True if the value was inserted; false if the key is already in
+     * the table or there is no room for it
+     * @throws IOException
+     */
+    @Override
+    public boolean insert(K key, V value) throws IOException
+    {
+        Reservation r = reserveGrowing(key.toString());
+        if (r.getStatus() == Reservation.Status.BUCKET_FULL && isGrowable())
+        {
+            report(r);
+        }
+        if (!r.isReserved())
+        {
+            return false;
+        }
+        return commit(r, value);
+    }
+
+    /**
+     * Probes for the given key once and reserves the slot a new entry with
+     * that key should go into. The stripe is not held between putIfAbsent()
+     * and commit(), so another thread may take the slot in between; commit()
+     * then probes again.
+     * @param key The key to insert
+     * @return A Reservation of the slot
+     * @throws IOException
+     */
+    @Override
+    public Reservation putIfAbsent(K key) throws IOException
+    {
+        Reservation r = reserveGrowing(key.toString());
+        report(r);
+        return r;
+    }
+
+    /**
+     * Stores an entry in the slot reserved for it by putIfAbsent().
+     * @param r The Reservation for the entry
+     * @param value The value to place in the hash table
+     * @return True if the value was inserted; false if the key was inserted
+     * by another thread or the table ran out of room since the reservation
+     * @throws IOException
+     */
+    @Override
+    public boolean commit(Reservation r, V value) throws IOException
+    {
+        while (true)
+        {
+            int before;
+            boolean inserted;
+            int stripe = lock(r.getKey(), true);
+            try
+            {
+                before = capacity();
+                inserted = super.commit(r, value);
+            }
+            finally
+            {
+                unlock(stripe);
+            }
+
+            growIfDueExclusively(!inserted && isGrowable());
+            // other threads may have filled the bucket since the slot was
+            // reserved; while the table keeps growing there may be room
+            if (inserted || !isGrowable() || capacity() == before)
+            {
+                return inserted;
+            }
+        }
+    }
+
+    /**
+     * Output array interpretation of HashTable in console
+     * @throws IOException
+     */
+    @Override
+    public void printTable() throws IOException
+    {
+        lockWhole();
+        try
+        {
+            super.printTable();
+        }
+        finally
+        {
+            unlockWhole();
+        }
+    }
+
+    /**
+     * Gets every live entry of the hash table.
+     * @return The entries, in the order of their slots
+     * @throws IOException
+     */
+    @Override
+    public List<V> entries() throws IOException
+    {
+        lockWhole();
+        try
+        {
+            return super.entries();
+        }
+        finally
+        {
+            unlockWhole();
+        }
+    }
+
+    /**
+     * Compacts the memory file a few sequences at a time. No other thread
+     * uses the table meanwhile, and searches that started before it try
+     * again, so no one reads a handle while its sequence is being moved.
+     * @param maxMoves The most sequence IDs and sequences to move
+     * @return The number that were moved
+     * @throws IOException
+     */
+    @Override
+    public int compact(int maxMoves) throws IOException
+    {
+        lockWhole();
+        try
+        {
+            return super.compact(maxMoves);
+        }
+        finally
+        {
+            unlockWhole();
+        }
+    }
+
+    /**
+     * Forces the slots to disk once no one is changing them.
+     * @throws IOException
+     */
+    @Override
+    public void force() throws IOException
+    {
+        lockWhole();
+        try
+        {
+            super.force();
+        }
+        finally
+        {
+            unlockWhole();
+        }
+    }
+
+    /**
+     * Finishes growing the table and closes its slots.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException
+    {
+        lockWhole();
+        try
+        {
+            super.close();
+        }
+        finally
+        {
+            unlockWhole();
+        }
+    }
+
+    /**
+     * Gets the V object with the latest file pointer from the table array
+     * @return The object with the highest file location
+     * @throws IOException
+     */
+    @Override
+    public SequenceBundle getLast() throws IOException
+    {
+        lockWhole();
+        try
+        {
+            return super.getLast();
+        }
+        finally
+        {
+            unlockWhole();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import student.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the methods of ConcurrentHashTable
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class ConcurrentHashTableTest extends TestCase {
+
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 150;
+
+    private ConcurrentHashTable<String, SequenceBundle> hashTable;
+    private MemoryManager mem;
+
+    /**
+     * Sets up a growable table of two buckets that the threads share.
+     */
+    public void setUp() throws IOException
+    {
+        mem = new MemoryManager("memoryfile.bin", 64);
+        hashTable = new ConcurrentHashTable<String, SequenceBundle>(
+            SequenceBundle.class, 64, mem, new MixHash(), 16);
+        hashTable.setGrowable(0.75);
+    }
+
+    /**
+     * Makes a distinct sequence ID for every number.
+     * @param n The number
+     * @return A sequence ID of ten bases
+     */
+    private static String key(int n)
+    {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 10; i++)
+        {
+            key.append("ACGT".charAt(n & 3));
+            n >>= 2;
+        }
+        return key.toString();
+    }
+
+    /**
+     * Runs the same job on several threads and waits for them.
+     * @param job The job, given the number of its thread
+     * @throws Exception The first exception a thread threw
+     */
+    private void runThreads(final Job job) throws Exception
+    {
+        final List<Throwable> failures =
+            Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++)
+        {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                public void run()
+                {
+                    try
+                    {
+                        job.run(thread);
+                    }
+                    catch (Throwable e)
+                    {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        if (!failures.isEmpty() && failures.get(0) instanceof Error)
+        {
+            throw (Error)failures.get(0);
+        }
+        if (!failures.isEmpty())
+        {
+            throw (Exception)failures.get(0);
+        }
+    }
+
+    /**
+     * A job for one thread.
+     */
+    private interface Job
+    {
+        /**
+         * Runs the job.
+         * @param thread The number of the thread
+         * @throws IOException
+         */
+        void run(int thread) throws IOException;
+    }
+
+    /**
+     * Inserts the keys of a thread.
+     * @param thread The number of the thread
+     * @throws IOException
+     */
+    private void insertKeys(int thread) throws IOException
+    {
+        for (int i = 0; i < PER_THREAD; i++)
+        {
+            String id = key(thread * PER_THREAD + i);
+            Reservation r = hashTable.putIfAbsent(id);
+            assertTrue(r.isReserved());
+            SequenceBundle val = new SequenceBundle(false,
+                mem.insertSeq(id, 64), mem.insertSeq(id + "ACGT", 64));
+            assertTrue(hashTable.commit(r, val));
+        }
+    }
+
+    /**
+     * tests that threads inserting at once while the table grows lose no
+     * entries
+     * @throws Exception
+     */
+    public void testConcurrentInsert() throws Exception {
+        assertEquals(hashTable.stripes(), 2);
+        runThreads(new Job() {
+            public void run(int thread) throws IOException
+            {
+                insertKeys(thread);
+            }
+        });
+
+        assertEquals(hashTable.size(), THREADS * PER_THREAD);
+        assertTrue(hashTable.capacity() >= THREADS * PER_THREAD / 0.75);
+        for (int n = 0; n < THREADS * PER_THREAD; n++)
+        {
+            SequenceBundle found = hashTable.get(key(n));
+            assertNotNull(found);
+            assertEquals(ASCIIConverter.binToACGT(
+                mem.getSeq(found.getSequenceHandle()), 14), key(n) + "ACGT");
+        }
+        assertEquals(hashTable.entries().size(), THREADS * PER_THREAD);
+    }
+
+    /**
+     * tests that threads removing and searching at once each see their own
+     * changes
+     * @throws Exception
+     */
+    public void testConcurrentRemove() throws Exception {
+        runThreads(new Job() {
+            public void run(int thread) throws IOException
+            {
+                insertKeys(thread);
+            }
+        });
+        runThreads(new Job() {
+            public void run(int thread) throws IOException
+            {
+                for (int i = 0; i < PER_THREAD; i += 2)
+                {
+                    String id = key(thread * PER_THREAD + i);
+                    assertNotNull(hashTable.remove(id));
+                    assertNull(hashTable.get(id));
+                    assertNotNull(hashTable.get(
+                        key(thread * PER_THREAD + i + 1)));
+                }
+            }
+        });
+
+        assertEquals(hashTable.size(), THREADS * PER_THREAD / 2);
+        for (int n = 0; n < THREADS * PER_THREAD; n++)
+        {
+            assertEquals(hashTable.get(key(n)) != null, n % 2 == 1);
+        }
+    }
+
+    /**
+     * tests that lock-free searches always find entries that are in the table
+     * while other threads insert, remove and grow the table around them
+     * @throws Exception
+     */
+    public void testSearchWhileWriting() throws Exception {
+        insertKeys(0);
+        runThreads(new Job() {
+            public void run(int thread) throws IOException
+            {
+                if (thread > 1)
+                {
+                    // the writers insert keys of their own and remove half
+                    insertKeys(thread);
+                    for (int i = 0; i < PER_THREAD; i += 2)
+                    {
+                        assertNotNull(hashTable.remove(
+                            key(thread * PER_THREAD + i)));
+                    }
+                    return;
+                }
+                for (int round = 0; round < 20; round++)
+                {
+                    for (int i = 0; i < PER_THREAD; i++)
+                    {
+                        SequenceBundle found = hashTable.get(key(i));
+                        assertNotNull(found);
+                        assertEquals(found.getIDHandle().getSequenceLength(),
+                            10);
+                    }
+                    assertNull(hashTable.get(key(PER_THREAD)));
+                }
+            }
+        });
+        assertEquals(hashTable.size(), 2 * PER_THREAD);
+    }
+}
@@ -1,5 +1,8 @@
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 //On my honor:
 //
@@ -31,6 +34,9 @@ import java.util.Arrays;
  */
 public class DNAdbase
 {
+    // printed before the sequence that a search finds
+    private static final byte[] FOUND = "Sequence Found: ".getBytes();
+
     //~ Public  Methods .......................................................
     /**
      * main() is the main function that calls on helper methods from other
@@ -38,6 +44,7 @@ public class DNAdbase
      *
      * @param args : arguments in order
      *      <command file> <hash file> <max size of hash table> <memory file>
+     *      followed by any options, such as --hash=mix
      * @throws IOException
      */
     public static void main(String[] args) throws IOException {
@@ -45,9 +52,134 @@ public class DNAdbase
         // <command file> <hash file> <max size of hash table> <memory file>
         File file = new File(args[0]);
         int size = Integer.parseInt(args[2]);
-        MemoryManager memory = new MemoryManager(args[3], size);
+        // The home slots are given by SFoldHash unless --hash=mix is passed.
+        HashFunction hash = new SFoldHash();
+        if (option(args, "hash", "sfold").equals("mix")) {
+            hash = new MixHash();
+        }
+        // With --persist the table lives in the hash file, and a hash file
+        // and memory file left by an earlier run are opened again rather
+        // than started over.
+        boolean persist = option(args, "persist", null) != null;
+        String kind = option(args, "storage", "file");
+        boolean reopen = persist && !kind.equals("memory")
+            && new File(args[3]).isFile() && MappedSlots.canReopen(args[1]);
+        // Sequences go into the best fitting free block unless another
+        // policy is passed as --alloc=first, next or segregated.
+        AllocationPolicy policy = new BestFit();
+        String alloc = option(args, "alloc", "best");
+        if (alloc.equals("first")) {
+            policy = new FirstFit();
+        }
+        else if (alloc.equals("next")) {
+            policy = new NextFit();
+        }
+        else if (alloc.equals("segregated")) {
+            policy = new SegregatedFit();
+        }
+        // With --storage=mapped the memory file is mapped into memory
+        // rather than read and written a call at a time, and with
+        // --storage=memory there is no memory file at all: the sequences
+        // are kept off the heap and are gone once the run is over.
+        Storage storage;
+        if (kind.equals("mapped")) {
+            storage = new MappedStorage(args[3], reopen);
+        }
+        else if (kind.equals("memory")) {
+            storage = new DirectStorage();
+        }
+        else {
+            storage = new FileStorage(args[3], reopen);
+        }
+        // With --cache=<pages> the most recently used pages of the memory
+        // file are kept in memory, 256 of them if no number is given.
+        String cache = option(args, "cache", null);
+        if (cache != null) {
+            storage = new PageCache(storage, cache.equals("true") ? 256
+                : Integer.parseInt(cache));
+        }
+        MemoryManager memory = new MemoryManager(storage, policy);
+        // Removed sequences are left in the memory file unless --scrub is
+        // passed, which overwrites them in the background.
+        if (option(args, "scrub", null) != null) {
+            memory.startScrubber(100);
+        }
+        // With --packed the slots of the table are kept in primitive arrays
+        // rather than as SequenceBundle objects.
+        SlotArray<SequenceBundle> slots;
+        if (persist) {
+            slots = new MappedSlots(args[1], size, hash, reopen);
+        }
+        else if (option(args, "packed", null) != null) {
+            slots = new PackedSlots(size);
+        }
+        else {
+            slots = new ObjectSlots<SequenceBundle>(SequenceBundle.class,
+                size);
+        }
         HashTable<String, SequenceBundle> table = new HashTable<String,
-            SequenceBundle>(SequenceBundle.class, size, memory);
+            SequenceBundle>(slots, memory, hash);
+        // With --grow the table doubles instead of rejecting sequences; the
+        // load factor it grows at can be given as --grow=0.9.
+        String grow = option(args, "grow", null);
+        if (grow != null) {
+            table.setGrowable(grow.equals("true") ? 0.75
+                : Double.parseDouble(grow));
+        }
+        // With --colocate a sequence ID and its sequence are stored as one
+        // record, with one allocation and one write, and the sequence is
+        // read from the bytes right after the ID that the search compared.
+        boolean colocate = option(args, "colocate", null) != null;
+
+        if (reopen) {
+            List<Handle> used = new ArrayList<Handle>();
+            for (SequenceBundle entry : table.entries()) {
+                used.add(entry.getIDHandle());
+                used.add(entry.getSequenceHandle());
+            }
+            memory.rebuildFreeList(used);
+        }
+        // With --persist --wal every insert and remove is logged before it
+        // is made, and the log is forced to disk every 64 commands, or as
+        // many as given by --wal=<batch>, or every 100 ms. What is left in
+        // the log by a run that did not finish is made again here, on top
+        // of the files as they were at its last checkpoint. Freed blocks
+        // are only handed out again after the next checkpoint. The files
+        // are not held back for the log to be forced, so this recovers
+        // from the program dying, without --cache, but a crash of the
+        // system may leave the changes after the last checkpoint in part.
+        WriteAheadLog wal = null;
+        String walBatch = option(args, "wal", null);
+        if (!persist && walBatch != null) {
+            System.out.println("Warning: --wal needs --persist and is "
+                + "ignored");
+        }
+        else if (walBatch != null) {
+            wal = new WriteAheadLog(args[3] + ".wal", walBatch.equals("true")
+                ? 64 : Integer.parseInt(walBatch), 100);
+            memory.holdFrees();
+            if (reopen) {
+                replay(wal, table, memory, colocate);
+            }
+            // otherwise the files the log was for are gone
+            checkpoint(table, memory, wal);
+        }
+
+        // With --index every k-mer of the stored sequences, 8 bases long or
+        // as long as given by --index=<k>, is indexed as sequences are
+        // inserted and removed, for the contains command.
+        KmerIndex index = null;
+        String kmers = option(args, "index", null);
+        if (kmers != null) {
+            index = new KmerIndex(kmers.equals("true") ? KmerIndex.DEFAULT_K
+                : Integer.parseInt(kmers));
+            for (SequenceBundle entry : table.entries()) {
+                Handle idHandle = entry.getIDHandle();
+                index.add(ASCIIConverter.binToACGT(memory.getSeq(idHandle),
+                    idHandle.getSequenceLength()), entry.getSequenceHandle(),
+                    memory);
+            }
+        }
 
         // The maximum size of the code's hash table is expected to be a
         // multiple of 32.  An issue will also occur if the command file
@@ -57,9 +189,31 @@ public class DNAdbase
                 "Error: hashtable size must be a multiple of 32");
         }
         if (!file.exists()) {
+            close(table, memory, wal);
             return;
         }
 
+        // With --compact the memory file is compacted a little after every
+        // command: up to 16 sequence IDs and sequences, or as many as given
+        // by --compact=<moves>, are slid down over the free blocks.
+        String compact = option(args, "compact", null);
+        int compactMoves = 0;
+        if (compact != null) {
+            compactMoves = compact.equals("true") ? 16
+                : Integer.parseInt(compact);
+        }
+
+        // With --stream the sequence of an insert is packed into the memory
+        // file a chunk at a time as it is read, rather than read in as one
+        // line first, so a sequence longer than the heap can be inserted.
+        // The log holds whole sequences, so with --wal they are read whole.
+        boolean stream = option(args, "stream", null) != null;
+        if (stream && wal != null) {
+            System.out.println("Warning: --stream is ignored with --wal, "
+                + "which logs whole sequences");
+            stream = false;
+        }
+
         // The following code will scan the command file, line by line, and
         // split each line by whitespaces.
         String line;
@@ -73,7 +227,13 @@ public class DNAdbase
                 command = Arrays.copyOfRange(command, 1, command.length);
             }
 
-            if (command.length > 0 && command[0].equals("insert")) {
+            if (command.length > 0 && command[0].equals("insert")
+                && stream) {
+                streamInsert(buffered, command[1],
+                    Integer.parseInt(command[2]), table, memory, colocate,
+                    index);
+            }
+            else if (command.length > 0 && command[0].equals("insert")) {
                 line = buffered.readLine().trim();
                 String sequenceId = command[1];
                 int length = Integer.parseInt(command[2]);
@@ -87,22 +247,38 @@ public class DNAdbase
                     length = sequence.length();
                 }
 
-                // This portion of code checks if the sequenceID can be inserted
-                // into the hash table before the sequence ID is inserted into
+                // The hash table is probed once for the sequence ID, and a
+                // slot is reserved for it before anything is inserted into
                 // the memory file.
-                if (table.canInsert(sequenceId)) {
-                    Handle idHandle = memory.insertSeq(sequenceId, size);
-                    Handle seqHandle = memory.insertSeq(sequence, size);
-
+                Reservation slot = table.putIfAbsent(sequenceId);
+                if (slot.isReserved()) {
+                    if (wal != null) {
+                        wal.logInsert(sequenceId, sequence);
+                    }
                     // A SequenceBundle object, containing the two handles, is
-                    // created and inserted into the hash table.
-                    SequenceBundle val = new SequenceBundle(false, idHandle,
-                        seqHandle);
-                    table.insert(sequenceId, val);
+                    // created and committed to the reserved slot.
+                    SequenceBundle val;
+                    if (colocate) {
+                        val = memory.insertRecord(sequenceId, sequence);
+                    }
+                    else {
+                        Handle idHandle = memory.insertSeq(sequenceId, size);
+                        Handle seqHandle = memory.insertSeq(sequence, size);
+                        val = new SequenceBundle(false, idHandle, seqHandle);
+                    }
+                    if (commit(table, slot, val, memory) && index != null) {
+                        index.add(sequenceId, val.getSequenceHandle(),
+                            memory);
+                    }
                 }
             }
             else if (command.length > 0 && command[0].equals("remove")) {
                 String sequenceID = command[1];
+                // The remove is logged before the table is changed; making
+                // it again does nothing if the sequence ID is not found.
+                if (wal != null) {
+                    wal.logRemove(sequenceID);
+                }
                 // The entry with the corresponding sequenceID is removed from
                 // the hash table.
                 SequenceBundle removeVal = table.remove(sequenceID);
@@ -113,16 +289,19 @@ public class DNAdbase
                 }
                 else
                 {
+                    if (index != null) {
+                        // The index reads the sequence's k-mers, so it
+                        // goes before the record is freed.
+                        index.remove(sequenceID, removeVal.getSequenceHandle(),
+                            memory);
+                    }
                     // Both the sequence and sequence ID are subsequently
-                    // removed from the memory file.
-                    memory.removeSeq(removeVal.getIDHandle());
-                    byte[] seqBytes = memory.removeSeq(
-                        removeVal.getSequenceHandle());
-                    String theSeq = ASCIIConverter.binToACGT(seqBytes,
-                        removeVal.getSequenceHandle().getSequenceLength());
-
-                    System.out.printf("Sequence Removed %s:\n%s\n", sequenceID,
-                        theSeq);
+                    // removed from the memory file, as one block if they are
+                    // stored together; only the sequence is read back, a
+                    // piece at a time, to be printed.
+                    System.out.printf("Sequence Removed %s:\n", sequenceID);
+                    memory.removeRecord(removeVal, System.out);
+                    System.out.println();
                 }
             }
             else if (command.length > 0 && command[0].equals("print")) {
@@ -134,26 +313,318 @@ public class DNAdbase
                 // All free blocks are printed out.
                 memory.printFreeBlocks();
             }
+            else if (command.length > 3 && command[0].equals("search")
+                && range(command[2], command[3]) == null) {
+                // A start or length that is not a number is reported like
+                // an unknown command, and the command file goes on.
+                System.out.printf("%s %s is not a start and a length\n",
+                    command[2], command[3]);
+            }
             else if (command.length > 0 && command[0].equals("search")) {
                 String sequenceID = command[1];
-                SequenceBundle find = table.get(sequenceID);
+                SequenceBundle find;
+                if (command.length > 3) {
+                    find = table.get(sequenceID);
+                }
+                else {
+                    // The sequence is printed as soon as its entry is
+                    // found, from the same read as the sequence ID when
+                    // the two are stored together.
+                    find = table.search(sequenceID, FOUND, System.out);
+                    if (find != null) {
+                        System.out.println();
+                    }
+                }
                 if (find == null) {
                     System.out.printf("SequenceID %s not found\n", sequenceID);
                 }
-                else {
-                    Handle seqHandle = find.getSequenceHandle();
-                    System.out.printf("Sequence Found: %s\n",
-                        ASCIIConverter.binToACGT(memory.getSeq(seqHandle),
-                            seqHandle.getSequenceLength()));
+                else if (command.length > 3) {
+                    // search <id> <start> <length> reads only the bases
+                    // from start on.
+                    int[] range = range(command[2], command[3]);
+                    String part = memory.getSubsequence(
+                        find.getSequenceHandle(), range[0], range[1]);
+                    if (part == null) {
+                        System.out.printf("Range %s %s is not in SequenceID "
+                            + "%s\n", command[2], command[3], sequenceID);
+                    }
+                    else {
+                        System.out.printf("Sequence Found: %s\n", part);
+                    }
                 }
             }
+            else if (command.length > 1 && command[0].equals("contains")) {
+                contains(command[1], index, table, memory);
+            }
+            else if (command.length > 0 && command[0].equals("stats")) {
+                // The fragmentation of the memory file is printed out.
+                memory.printStats();
+            }
             else if (command.length > 0 && command[0].length() > 0) {
                 System.out.printf("%s is not a command\n", command[0]);
             }
+
+            if (compactMoves > 0) {
+                table.compact(compactMoves);
+            }
+            if (wal != null && wal.checkpointDue()) {
+                checkpoint(table, memory, wal);
+            }
         }
 
         buffered.close();
         reader.close();
+        close(table, memory, wal);
+    }
+
+    /**
+     * Inserts a sequence that is packed into the memory file as it is read
+     * from the command file. Its length is only known once it is read, so
+     * a warning that it does not match the given length comes after any
+     * message from the hash table.
+     *
+     * @param in : the command file, at the line of the sequence
+     * @param sequenceId : the sequence ID
+     * @param length : the length given for the sequence
+     * @param table : the hash table
+     * @param memory : the memory manager of the memory file
+     * @param colocate : true to store the ID and sequence as one record
+     * @param index : the k-mer index, or null
+     * @throws IOException
+     */
+    static void streamInsert(BufferedReader in, String sequenceId,
+        int length, HashTable<String, SequenceBundle> table,
+        MemoryManager memory, boolean colocate, KmerIndex index)
+        throws IOException {
+        SequenceReader sequence = new SequenceReader(in);
+        Reservation slot = table.putIfAbsent(sequenceId);
+        // A negative length is reported by the warning below, as it is
+        // without --stream, so no room is taken up front for it.
+        int expected = Math.max(length, 0);
+        long actual;
+        if (slot.isReserved()) {
+            SequenceBundle val;
+            Handle idHandle = null;
+            try {
+                if (colocate) {
+                    val = memory.insertRecord(sequenceId, sequence,
+                        expected);
+                }
+                else {
+                    idHandle = memory.insertSeq(sequenceId,
+                        table.capacity());
+                    Handle seqHandle = memory.insertSeq(sequence, expected);
+                    val = new SequenceBundle(false, idHandle, seqHandle);
+                }
+            }
+            catch (IllegalArgumentException e) {
+                // The sequence is too long for a handle.
+                if (idHandle != null) {
+                    memory.freeSeq(idHandle);
+                }
+                sequence.skip(Long.MAX_VALUE);
+                sequence.close();
+                System.out.printf("Sequence %s could not be inserted\n",
+                    sequenceId);
+                return;
+            }
+            if (commit(table, slot, val, memory) && index != null) {
+                index.add(sequenceId, val.getSequenceHandle(), memory);
+            }
+            actual = val.getSequenceHandle().getSequenceLength();
+        }
+        else {
+            actual = sequence.skip(Long.MAX_VALUE);
+        }
+        sequence.close();
+        if (length != actual) {
+            System.out.printf("Warning: Actual sequence length (%d) "
+                + "does not match given length (%d)\n", actual, length);
+        }
+    }
+
+    /**
+     * Reads the start and length given to a search.
+     *
+     * @param start : the start, as given
+     * @param length : the length, as given
+     * @return the start and the length, or null if either is not a number
+     */
+    static int[] range(String start, String length) {
+        try {
+            return new int[] {Integer.parseInt(start),
+                Integer.parseInt(length)};
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Prints the sequence IDs of the sequences that contain a motif, each
+     * with the offsets the motif starts at, found through the k-mer index.
+     *
+     * @param motif : the motif
+     * @param index : the k-mer index, or null if there is none
+     * @param table : the hash table
+     * @param memory : the memory manager of the memory file
+     * @throws IOException
+     */
+    static void contains(String motif, KmerIndex index, HashTable<String,
+        SequenceBundle> table, MemoryManager memory) throws IOException {
+        if (index == null) {
+            System.out.println("contains needs the k-mer index (--index)");
+            return;
+        }
+        if (motif.length() < index.getK()) {
+            System.out.printf("Motif %s is shorter than %d bases\n", motif,
+                index.getK());
+            return;
+        }
+        Map<String, List<Integer>> found = index.find(motif, table, memory);
+        if (found.isEmpty()) {
+            System.out.printf("Motif %s not found\n", motif);
+            return;
+        }
+        System.out.printf("Motif %s found:\n", motif);
+        for (Map.Entry<String, List<Integer>> entry : found.entrySet()) {
+            StringBuilder offsets = new StringBuilder();
+            for (int offset : entry.getValue()) {
+                offsets.append(' ').append(offset);
+            }
+            System.out.printf("%s:%s\n", entry.getKey(), offsets);
+        }
+    }
+
+    /**
+     * Makes the inserts and removes left in a write-ahead log again. The
+     * crash that left them may have come after some of them were made, so
+     * an insert of a sequence ID that is already in the table and a remove
+     * of one that is not are skipped. An insert that reached the files only
+     * in part, which a crash of the system can leave, is not repaired.
+     *
+     * @param wal : the log
+     * @param table : the hash table
+     * @param memory : the memory manager of the memory file
+     * @param colocate : true to store the ID and sequence as one record
+     * @throws IOException
+     */
+    static void replay(WriteAheadLog wal, HashTable<String,
+        SequenceBundle> table, MemoryManager memory, boolean colocate)
+        throws IOException {
+        for (String[] record : wal.recovered()) {
+            String id = record[1];
+            if (record[0].equals("insert")) {
+                if (table.get(id) != null) {
+                    continue;
+                }
+                Reservation slot = table.putIfAbsent(id);
+                if (slot.isReserved()) {
+                    SequenceBundle val;
+                    if (colocate) {
+                        val = memory.insertRecord(id, record[2]);
+                    }
+                    else {
+                        int size = table.capacity();
+                        val = new SequenceBundle(false,
+                            memory.insertSeq(id, size),
+                            memory.insertSeq(record[2], size));
+                    }
+                    commit(table, slot, val, memory);
+                }
+            }
+            else {
+                SequenceBundle removed = table.remove(id);
+                if (removed != null) {
+                    memory.removeRecord(removed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces the hash file and memory file to disk and only then empties
+     * the write-ahead log, since the files now hold everything in it. The
+     * blocks freed since the last checkpoint can then be handed out again.
+     *
+     * @param table : the hash table
+     * @param memory : the memory manager of the memory file
+     * @param wal : the log
+     * @throws IOException
+     */
+    static void checkpoint(HashTable<String, SequenceBundle> table,
+        MemoryManager memory, WriteAheadLog wal) throws IOException {
+        table.force();
+        memory.force();
+        wal.checkpoint();
+        memory.releaseFrees();
+    }
+
+    /**
+     * Closes the hash table and memory file, and then empties the
+     * write-ahead log, if there is one, since both files hold everything in
+     * it.
+     *
+     * @param table : the hash table
+     * @param memory : the memory manager of the memory file
+     * @param wal : the log, or null
+     * @throws IOException
+     */
+    static void close(HashTable<String, SequenceBundle> table,
+        MemoryManager memory, WriteAheadLog wal) throws IOException {
+        table.close();
+        memory.close();
+        if (wal != null) {
+            wal.checkpoint();
+            wal.close();
+        }
+    }
+
+    /**
+     * Stores an inserted record in the slot reserved for it. If the table
+     * changed since the slot was reserved and there is no longer room for
+     * the sequence, the record is freed again and the sequence is reported
+     * as not inserted.
+     *
+     * @param table : the hash table
+     * @param slot : the reserved slot
+     * @param val : the handles of the record
+     * @param memory : the memory manager of the memory file
+     * @return true if the record was stored; false otherwise
+     * @throws IOException
+     */
+    static boolean commit(HashTable<String, SequenceBundle> table,
+        Reservation slot, SequenceBundle val, MemoryManager memory)
+        throws IOException {
+        if (table.commit(slot, val)) {
+            return true;
+        }
+        memory.freeRecord(val);
+        System.out.printf("Sequence %s could not be inserted\n",
+            slot.getKey());
+        return false;
+    }
+
+    /**
+     * Looks up an option passed after the four required arguments. Options
+     * are written as --name=value, or just --name for an option that is
+     * turned on.
+     *
+     * @param args : the arguments passed to main()
+     * @param name : the name of the option
+     * @param def : the value to use if the option is not given
+     * @return value : the value of the option
+     */
+    static String option(String[] args, String name, String def) {
+        for (int i = 4; i < args.length; i++) {
+            if (args[i].equals("--" + name)) {
+                return "true";
+            }
+            if (args[i].startsWith("--" + name + "=")) {
+                return args[i].substring(name.length() + 3);
+            }
+        }
+        return def;
     }
 
 }
@@ -1,8 +1,11 @@
 import student.TestCase;
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringReader;
 
 /**
  * Tests the methods of DNAdbase.
@@ -149,4 +152,111 @@ public class DNAdbaseTest extends TestCase
         hash.delete();
     }
 
+    /**
+     * tests that an entry whose reserved slot was taken before it was
+     * committed is freed again and reported
+     * @throws IOException
+     */
+    public void testCommitTaken() throws IOException {
+        MemoryManager memory = new MemoryManager("commit_mem.bin", 32);
+        HashTable<String, SequenceBundle> table =
+            new HashTable<String, SequenceBundle>(SequenceBundle.class, 32,
+                memory);
+        Reservation first = table.putIfAbsent("CAT");
+        Reservation second = table.putIfAbsent("CAT");
+        assertTrue(DNAdbase.commit(table, first, new SequenceBundle(false,
+            memory.insertSeq("CAT", 32), memory.insertSeq("GATTACA", 32)),
+            memory));
+        assertFalse(DNAdbase.commit(table, second, new SequenceBundle(false,
+            memory.insertSeq("CAT", 32), memory.insertSeq("GGGG", 32)),
+            memory));
+        assertTrue(outContent.toString().contains(
+            "Sequence CAT could not be inserted"));
+        assertEquals(memory.insertSeq("CAT", 32).getFileLocation(), 3);
+        assertEquals(table.size(), 1);
+        memory.close();
+        new File("commit_mem.bin").delete();
+    }
+
+    /**
+     * tests that a search for part of a sequence with a start or length
+     * that is not a number is reported, and the command file goes on
+     * @throws IOException
+     */
+    public void testSearchRange() throws IOException {
+        FileWriter commands = new FileWriter("range.txt");
+        commands.write("insert CAT 7\nGATTACA\nsearch CAT x 2\n"
+            + "search CAT 2 99999999999\nsearch CAT 7 1\n"
+            + "search CAT 5 9\n");
+        commands.close();
+        String[] args = {"range.txt", "range_out.txt", "32",
+            "range_mem.bin"};
+        dbase.main(args);
+
+        assertTrue(outContent.toString().contains(
+            "x 2 is not a start and a length"));
+        assertTrue(outContent.toString().contains(
+            "2 99999999999 is not a start and a length"));
+        assertTrue(outContent.toString().contains(
+            "Range 7 1 is not in SequenceID CAT"));
+        assertTrue(outContent.toString().contains("Sequence Found: CA"));
+
+        new File("range.txt").delete();
+        new File("range_out.txt").delete();
+        new File("range_mem.bin").delete();
+    }
+
+    /**
+     * tests that a streamed insert given a negative length is stored and
+     * warned about as one without --stream is
+     * @throws IOException
+     */
+    public void testStreamNegative() throws IOException {
+        MemoryManager memory = new MemoryManager(new DirectStorage(),
+            new BestFit());
+        HashTable<String, SequenceBundle> table =
+            new HashTable<String, SequenceBundle>(SequenceBundle.class, 32,
+                memory);
+        BufferedReader in = new BufferedReader(new StringReader(
+            "GATTACA\nsearch CAT\n"));
+        DNAdbase.streamInsert(in, "CAT", -9, table, memory, true, null);
+        assertTrue(outContent.toString().contains("Warning: Actual sequence "
+            + "length (7) does not match given length (-9)"));
+        Handle seq = table.get("CAT").getSequenceHandle();
+        assertEquals(ASCIIConverter.binToACGT(memory.getSeq(seq), 7),
+            "GATTACA");
+        assertEquals(in.readLine(), "search CAT");
+        assertEquals(memory.firstFree(), -1);
+    }
+
+    /**
+     * tests that options that are left out because of the others given are
+     * warned about rather than dropped silently
+     * @throws IOException
+     */
+    public void testIgnoredOptions() throws IOException {
+        FileWriter commands = new FileWriter("options.txt");
+        commands.write("insert CAT 7\nGATTACA\nsearch CAT\n");
+        commands.close();
+        dbase.main(new String[] {"options.txt", "options_out.txt", "32",
+            "options_mem.bin", "--wal"});
+        assertTrue(outContent.toString().contains(
+            "Warning: --wal needs --persist and is ignored"));
+        assertFalse(new File("options_mem.bin.wal").exists());
+        assertFalse(outContent.toString().contains("--stream"));
+
+        new File("options_out.txt").delete();
+        new File("options_mem.bin").delete();
+        dbase.main(new String[] {"options.txt", "options_out.txt", "32",
+            "options_mem.bin", "--persist", "--wal", "--stream"});
+        assertTrue(outContent.toString().contains(
+            "Warning: --stream is ignored with --wal"));
+        assertTrue(outContent.toString().contains("Sequence Found: GATTACA"));
+
+        new File("options.txt").delete();
+        new File("options_out.txt").delete();
+        new File("options_mem.bin").delete();
+        new File("options_mem.bin.wal").delete();
+    }
+
 }
@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * DirectStorage keeps the memory file in direct buffers outside of the Java
+ * heap instead of in a file, for runs that do not need the sequences once
+ * they are over. The buffers are allocated in chunks as the file grows, and
+ * the chunks past the end are let go of when it is cut off, so a large file
+ * neither fills the heap nor has to be looked through by the garbage
+ * collector.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class DirectStorage extends ChunkedStorage {
+
+    /**
+     * Creates an empty storage that allocates chunks of DEFAULT_CHUNK_SIZE.
+     */
+    public DirectStorage()
+    {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an empty storage.
+     * @param chunkSize The number of bytes allocated at a time
+     */
+    public DirectStorage(int chunkSize)
+    {
+        super(chunkSize);
+    }
+
+    /**
+     * Allocates a chunk off the heap.
+     * @param index The number of the chunk
+     * @return The chunk
+     */
+    protected ByteBuffer newChunk(int index)
+    {
+        return ByteBuffer.allocateDirect(getChunkSize());
+    }
+
+    /**
+     * Cuts the memory file off, letting go of the chunks past its new end,
+     * or extends it with 0s.
+     * @param newLength The new length of the memory file
+     * @throws IOException
+     */
+    @Override
+    public synchronized void setLength(long newLength) throws IOException
+    {
+        super.setLength(newLength);
+        dropChunks(newLength);
+    }
+
+    /**
+     * Does nothing, since there is no file.
+     */
+    public void force()
+    {
+        // the bytes are gone once the run is over anyway
+    }
+
+    /**
+     * Lets go of every chunk. What was stored is gone.
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException
+    {
+        setLength(0);
+    }
+}
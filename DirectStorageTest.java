@@ -0,0 +1,51 @@
+import student.TestCase;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests the methods of DirectStorage. The reads and writes every Storage
+ * has to get right are tested in StorageTest.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class DirectStorageTest extends TestCase {
+
+    private DirectStorage storage;
+
+    /**
+     * Creates a storage with chunks of 16 bytes.
+     */
+    public void setUp()
+    {
+        storage = new DirectStorage(16);
+    }
+
+    /**
+     * tests that chunks are allocated as the storage grows past them, and
+     * let go of when it is cut off before them
+     * @throws IOException
+     */
+    public void testChunks() throws IOException
+    {
+        assertEquals(storage.chunks().length, 0);
+        storage.write(StorageTest.bytes(1, 16), 0);
+        assertEquals(storage.chunks().length, 1);
+        storage.write(StorageTest.bytes(17, 24), 16);
+        assertEquals(storage.chunks().length, 3);
+        assertTrue(storage.chunks()[2].isDirect());
+
+        storage.setLength(17);
+        assertEquals(storage.chunks().length, 2);
+        storage.setLength(40);
+        assertEquals(storage.chunks().length, 3);
+        byte[] read = new byte[4];
+        storage.read(read, 15);
+        assertTrue(Arrays.equals(read, new byte[] {16, 17, 0, 0}));
+
+        storage.close();
+        assertEquals(storage.length(), 0);
+        assertEquals(storage.chunks().length, 0);
+    }
+}
@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * FileStorage reads and writes the memory file with one positional
+ * FileChannel call per access. This is the Storage MemoryManager uses unless
+ * it is given another.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class FileStorage implements Storage {
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+
+    /**
+     * Opens the given file.
+     * @param filename The name of the file
+     * @param reopen True to keep what is in the file; false to empty it
+     * @throws IOException
+     */
+    public FileStorage(String filename, boolean reopen) throws IOException
+    {
+        file = new RandomAccessFile(filename, "rw");
+        if (!reopen)
+        {
+            file.setLength(0);
+        }
+        channel = file.getChannel();
+    }
+
+    /**
+     * Fills a byte array from a file location. A read may return fewer bytes
+     * than asked for, so it is repeated until the array is full or the file
+     * ends, and the rest of the array is filled with 0s.
+     * @param result The array to fill
+     * @param loc The file location of the first byte
+     * @throws IOException
+     */
+    public void read(byte[] result, long loc) throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.wrap(result);
+        while (buf.hasRemaining())
+        {
+            if (channel.read(buf, loc + buf.position()) < 0)
+            {
+                Arrays.fill(result, buf.position(), result.length, (byte)0);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Writes a byte array at a file location.
+     * @param bytes The bytes to write
+     * @param loc The file location of the first byte
+     * @throws IOException
+     */
+    public void write(byte[] bytes, long loc) throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining())
+        {
+            channel.write(buf, loc + buf.position());
+        }
+    }
+
+    /**
+     * Gets the length of the file.
+     * @return The number of bytes in the file
+     * @throws IOException
+     */
+    public long length() throws IOException
+    {
+        return file.length();
+    }
+
+    /**
+     * Cuts the file off or extends it with 0s.
+     * @param length The new length of the file
+     * @throws IOException
+     */
+    public void setLength(long length) throws IOException
+    {
+        file.setLength(length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void force() throws IOException
+    {
+        channel.force(false);
+    }
+
+    /**
+     * Forces the file to disk and closes it, so a WriteAheadLog can be
+     * emptied once the memory file is closed.
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+        channel.force(false);
+        file.close();
+    }
+}
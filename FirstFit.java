@@ -0,0 +1,69 @@
+import java.util.NavigableMap;
+
+/**
+ * FirstFit stores a sequence in the free block nearest the start of the
+ * file that it fits in. It keeps no index of its own, so a fit may look at
+ * every free block, but it tends to keep the end of the file free so the
+ * file can shrink.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class FirstFit implements AllocationPolicy {
+
+    /**
+     * Picks the first free block in the file that is big enough.
+     * @param blocks The free blocks, keyed and ordered by file offset
+     * @param bytes The number of bytes needed
+     * @return The first fitting block, or null if there is none
+     */
+    public Pair fit(NavigableMap<Long, Pair> blocks, long bytes)
+    {
+        return first(blocks.values(), bytes);
+    }
+
+    /**
+     * Picks the first of some free blocks that is big enough.
+     * @param blocks The free blocks, in the order to try them
+     * @param bytes The number of bytes needed
+     * @return The first fitting block, or null if there is none
+     */
+    static Pair first(Iterable<Pair> blocks, long bytes)
+    {
+        for (Pair block : blocks)
+        {
+            if (block.getLength() >= bytes)
+            {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells the policy about a block that became free.
+     * @param block The free block
+     */
+    public void add(Pair block)
+    {
+        // first fit looks through the blocks in file order every time
+    }
+
+    /**
+     * Tells the policy about a block that is no longer free.
+     * @param block The block
+     */
+    public void remove(Pair block)
+    {
+        // nothing is kept about the block
+    }
+
+    /**
+     * Tells the policy that there are no free blocks left.
+     */
+    public void clear()
+    {
+        // nothing is kept about the blocks
+    }
+}
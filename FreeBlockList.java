@@ -0,0 +1,230 @@
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The free blocks of the memory file.  The blocks are kept by file offset,
+ * so that a freed block finds its neighbors to merge with in logarithmic
+ * time.  Which block a sequence is stored in is up to an AllocationPolicy,
+ * which may keep the blocks in an order of its own, such as by size.
+ *
+ *  @author Hannah Nguyen <hanguyen>
+ *  @author Ryan Maxey <ryanmaxey6>
+ *  @version December 11, 2020
+ */
+public class FreeBlockList implements Iterable<Pair> {
+
+    private TreeMap<Long, Pair> byOffset;
+    private NavigableMap<Long, Pair> readOnly;
+    private AllocationPolicy policy;
+    private long freeBytes;
+
+    /**
+     * Creates an empty free block list that allocates by best fit.
+     */
+    public FreeBlockList()
+    {
+        this(new BestFit());
+    }
+
+    /**
+     * Creates an empty free block list.
+     * @param policy : The policy that picks the block to allocate from
+     */
+    public FreeBlockList(AllocationPolicy policy)
+    {
+        byOffset = new TreeMap<Long, Pair>();
+        readOnly = Collections.unmodifiableNavigableMap(byOffset);
+        this.policy = policy;
+    }
+
+    /**
+     * This is a getter function for the number of free blocks.
+     * @return The number of free blocks
+     */
+    public int size()
+    {
+        return byOffset.size();
+    }
+
+    /**
+     * This is a getter function for the total length of the free blocks.
+     * @return The number of free bytes
+     */
+    public long freeBytes()
+    {
+        return freeBytes;
+    }
+
+    /**
+     * This is a getter function for the length of the largest free block.
+     * It looks at every block.
+     * @return The length of the largest free block, or 0 if there are none
+     */
+    public long largest()
+    {
+        long largest = 0;
+        for (Pair block : byOffset.values()) {
+            largest = Math.max(largest, block.getLength());
+        }
+        return largest;
+    }
+
+    /**
+     * Determines if there are no free blocks.
+     * @return True if there are no free blocks; false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return byOffset.isEmpty();
+    }
+
+    /**
+     * Takes bytes from the front of the free block picked by the policy.
+     * @param bytes : The number of bytes needed
+     * @return The file offset of the bytes, or -1 if no free block is big
+     * enough
+     */
+    public long allocate(long bytes)
+    {
+        Pair fit = policy.fit(readOnly, bytes);
+        if (fit == null) {
+            return -1;
+        }
+        remove(fit);
+        long offset = fit.getFileOffset();
+        if (fit.getLength() > bytes) {
+            fit.setFileOffset(offset + bytes);
+            fit.setLength(fit.getLength() - bytes);
+            add(fit);
+        }
+        return offset;
+    }
+
+    /**
+     * Frees a block, merging it with the free blocks that touch it.
+     * @param offset : The file offset of the block
+     * @param length : The length of the block in bytes
+     * @return The free block that the bytes are now part of
+     */
+    public Pair free(long offset, long length)
+    {
+        long start = offset;
+        long end = offset + length;
+
+        Map.Entry<Long, Pair> before = byOffset.floorEntry(start);
+        if (before != null && before.getValue().getFileOffset()
+            + before.getValue().getLength() >= start) {
+            Pair prev = before.getValue();
+            remove(prev);
+            start = prev.getFileOffset();
+            end = Math.max(end, prev.getFileOffset() + prev.getLength());
+        }
+
+        Map.Entry<Long, Pair> after = byOffset.ceilingEntry(start);
+        while (after != null && after.getKey() <= end) {
+            Pair next = after.getValue();
+            remove(next);
+            end = Math.max(end, next.getFileOffset() + next.getLength());
+            after = byOffset.ceilingEntry(start);
+        }
+
+        Pair block = new Pair(start, end - start);
+        add(block);
+        return block;
+    }
+
+    /**
+     * Adds a free block that does not touch any other free block.
+     * @param block : The free block
+     */
+    public void add(Pair block)
+    {
+        byOffset.put(block.getFileOffset(), block);
+        policy.add(block);
+        freeBytes += block.getLength();
+    }
+
+    /**
+     * Removes a free block from the list.
+     * @param block : The free block
+     */
+    public void remove(Pair block)
+    {
+        byOffset.remove(block.getFileOffset());
+        policy.remove(block);
+        freeBytes -= block.getLength();
+    }
+
+    /**
+     * Gets the free block that ends right where the given offset starts.
+     * @param offset : The file offset just past the block
+     * @return The free block, or null if the byte before the offset is not
+     * free
+     */
+    public Pair endingAt(long offset)
+    {
+        Map.Entry<Long, Pair> before = byOffset.lowerEntry(offset);
+        if (before == null || before.getValue().getFileOffset()
+            + before.getValue().getLength() != offset) {
+            return null;
+        }
+        return before.getValue();
+    }
+
+    /**
+     * This is a getter function for the free block with the lowest offset.
+     * @return The first free block, or null if there are none
+     */
+    public Pair first()
+    {
+        Map.Entry<Long, Pair> first = byOffset.firstEntry();
+        return first == null ? null : first.getValue();
+    }
+
+    /**
+     * Gets the free blocks that hold any of the bytes of a range.
+     * @param start : The file offset of the first byte of the range
+     * @param end : The file offset just past the range
+     * @return The blocks in file order; the first may end before the range
+     * starts
+     */
+    public Collection<Pair> overlapping(long start, long end)
+    {
+        Long from = byOffset.floorKey(start);
+        return readOnly.subMap(from == null ? start : from, true, end,
+            false).values();
+    }
+
+    /**
+     * This is a getter function for the free block with the highest offset.
+     * @return The last free block, or null if there are none
+     */
+    public Pair last()
+    {
+        Map.Entry<Long, Pair> last = byOffset.lastEntry();
+        return last == null ? null : last.getValue();
+    }
+
+    /**
+     * Removes every free block.
+     */
+    public void clear()
+    {
+        byOffset.clear();
+        policy.clear();
+        freeBytes = 0;
+    }
+
+    /**
+     * Goes through the free blocks in file order.
+     * @return An iterator over the free blocks
+     */
+    public Iterator<Pair> iterator()
+    {
+        return readOnly.values().iterator();
+    }
+}
@@ -0,0 +1,95 @@
+import student.TestCase;
+
+/**
+ * Tests the methods of FreeBlockList
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class FreeBlockListTest extends TestCase {
+
+    private FreeBlockList list;
+
+    /**
+     * Sets up free blocks of 4, 2, 8 and 2 bytes with gaps between them.
+     */
+    public void setUp()
+    {
+        list = new FreeBlockList();
+        list.free(0, 4);
+        list.free(10, 2);
+        list.free(20, 8);
+        list.free(40, 2);
+    }
+
+    /**
+     * tests that the smallest block that fits is used, the first one of
+     * blocks of the same size, and that blocks that are used up are dropped
+     */
+    public void testAllocate() {
+        assertEquals(list.size(), 4);
+        assertEquals(list.allocate(2), 10);
+        assertEquals(list.allocate(2), 40);
+        assertEquals(list.size(), 2);
+
+        assertEquals(list.allocate(3), 0);
+        assertEquals(list.allocate(1), 3);
+        assertEquals(list.allocate(5), 20);
+        assertEquals(list.last().getFileOffset(), 25);
+        assertEquals(list.last().getLength(), 3);
+        assertEquals(list.allocate(4), -1);
+    }
+
+    /**
+     * tests that a freed block is merged with the blocks before and after it
+     */
+    public void testFree() {
+        Pair merged = list.free(4, 6);
+        assertEquals(merged.getFileOffset(), 0);
+        assertEquals(merged.getLength(), 12);
+        assertEquals(list.size(), 3);
+
+        merged = list.free(28, 12);
+        assertEquals(merged.getFileOffset(), 20);
+        assertEquals(merged.getLength(), 22);
+
+        merged = list.free(12, 8);
+        assertEquals(merged.getLength(), 42);
+        assertEquals(list.size(), 1);
+        assertEquals(list.allocate(42), 0);
+        assertTrue(list.isEmpty());
+        assertNull(list.last());
+    }
+
+    /**
+     * tests that the blocks are gone through in file order
+     */
+    public void testIterator() {
+        list.allocate(2);
+        long last = -1;
+        int count = 0;
+        for (Pair block : list) {
+            assertTrue(block.getFileOffset() > last);
+            last = block.getFileOffset();
+            count++;
+        }
+        assertEquals(count, 3);
+        list.clear();
+        assertFalse(list.iterator().hasNext());
+    }
+
+    /**
+     * tests that blocks past 2 GB, and blocks longer than 2 GB, are merged
+     * and allocated from
+     */
+    public void testWideBlocks() {
+        long far = 3L << 31;
+        list.free(far, 1L << 32);
+        list.free(far + (1L << 32), 16);
+        assertEquals(list.largest(), (1L << 32) + 16);
+        assertEquals(list.allocate(1L << 32), far);
+        assertEquals(list.last().getFileOffset(), far + (1L << 32));
+        assertEquals(list.freeBytes(), 4 + 2 + 8 + 2 + 16);
+    }
+}
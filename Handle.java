@@ -8,7 +8,7 @@
  */
 public class Handle {
 
-    private int fileLocation;
+    private long fileLocation;
     private int sequenceLength;
 
     /**
@@ -17,7 +17,7 @@ public class Handle {
      * @param location The location of the sequence in a file in bytes
      * @param length The length of the sequence in characters
      */
-    public Handle(int location, int length)
+    public Handle(long location, int length)
     {
         fileLocation = location;
         sequenceLength = length;
@@ -27,7 +27,7 @@ public class Handle {
      * Gets the location of the sequence in the file in bytes.
      * @return The file location of the sequence
      */
-    public int getFileLocation()
+    public long getFileLocation()
     {
         return fileLocation;
     }
@@ -45,7 +45,7 @@ public class Handle {
      * Sets the file location for the start of the sequence.
      * @param location The starting location of the sequence in the file
      */
-    public void setFileLocation(int location)
+    public void setFileLocation(long location)
     {
         fileLocation = location;
     }
@@ -0,0 +1,20 @@
+/**
+ * A HashFunction maps a sequence ID to its home slot in a HashTable. The
+ * HashTable is given its hash function when it is constructed.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public interface HashFunction {
+
+    /**
+     * Hash the given key for the given table capacity.
+     * @param key The key to hash
+     * @param capacity The capacity of the hash table
+     * @return The home slot of the key, between 0 and capacity - 1. For a
+     * growable HashTable, the home for twice the capacity modulo the capacity
+     * must be the home for the capacity.
+     */
+    int hash(String key, int capacity);
+}
@@ -1,10 +1,20 @@
 import java.io.IOException;
-import java.lang.reflect.Array;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A hash table with keys and values to support searches by
  * sequence identifier. It has a fixed capacity and manager object
- * for sequenceID and sequence
+ * for sequenceID and sequence. A growable table doubles its capacity instead
+ * of rejecting entries when a bucket overflows or the load factor is crossed,
+ * and moves the entries of the old table over a bucket at a time. The slots
+ * themselves are kept in a SlotArray, either as objects or packed into
+ * primitive arrays.
  *
  * @author Ryan Maxey <ryanmaxey6>
  * @author Hannah Nguyen <hanguyen>
@@ -19,57 +29,304 @@ public class HashTable<K, V extends SequenceBundle> {
      * The size of a bucket is 32 slots
      */
     static final int BUCKET_SIZE = 32;
-    private V[] table;
-    private int size;
-    private int capacity;
+    /**
+     * The most slots a table can have, the largest int that is a whole
+     * number of buckets
+     */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE / BUCKET_SIZE
+        * BUCKET_SIZE;
+    /**
+     * Returned by insertPosition() when the key is already in the table
+     */
+    private static final int DUPLICATE = -2;
+    /**
+     * Returned by insertPosition() when the bucket has no room for the key
+     */
+    private static final int FULL = -1;
+    private SlotArray<V> table;
+    private int[] tombStones;
+    private double purgeRatio;
+    private final AtomicInteger size;
+    private volatile int capacity;
     private MemoryManager manager;
+    private HashFunction hashFunction;
+    private double maxLoad;
+    private volatile boolean growthDue;
+
+    // How many times each bucket has been changed, and how many times the
+    // table has grown. A Reservation is good until either of them moves on.
+    private int[] changes;
+    private int generation;
+
+    // While a growable table is growing, the entries of the table it had
+    // before are moved over into the new table a bucket at a time.
+    private volatile SlotArray<V> oldTable;
+    private int oldCapacity;
+    private boolean[] moved;
+    private int movedCount;
+    private volatile int nextToMove;
+
+    // Once the table has been compacted, the slot of every handle that takes
+    // up bytes of the memory file is kept by its file location, as the slot
+    // shifted left with 1 added for a sequence handle, so compacting finds
+    // the handle after the first free block without a scan.
+    private volatile Map<Long, Integer> located;
 
     /**
      * Creates a new HashTable with the given capacity and a MemoryManager for
-     * accessing keys in memory.
+     * accessing keys in memory. Keys are hashed with SFoldHash.
      *
      * @param theClass The class of the V object
      * @param capacity The capacity of the HashTable
      * @param m The MemoryManager to use
      */
-    @SuppressWarnings("unchecked")
     public HashTable(Class<V> theClass, int capacity, MemoryManager m)
     {
-        size = 0;
-        this.capacity = capacity;
-        table = (V[])Array.newInstance(theClass, capacity);
+        this(theClass, capacity, m, new SFoldHash());
+    }
+
+    /**
+     * Creates a new HashTable with the given capacity, a MemoryManager for
+     * accessing keys in memory and the hash function to place keys with.
+     *
+     * @param theClass The class of the V object
+     * @param capacity The capacity of the HashTable
+     * @param m The MemoryManager to use
+     * @param hash The hash function that gives the home slot of a key
+     */
+    public HashTable(Class<V> theClass, int capacity, MemoryManager m,
+        HashFunction hash)
+    {
+        this(new ObjectSlots<V>(theClass, capacity), m, hash);
+    }
+
+    /**
+     * Creates a new HashTable that keeps its entries in the given slots. The
+     * slots may already hold entries, such as the slots of a hash file that
+     * is opened again.
+     *
+     * @param slots The slots of the HashTable
+     * @param m The MemoryManager to use
+     * @param hash The hash function that gives the home slot of a key
+     */
+    public HashTable(SlotArray<V> slots, MemoryManager m, HashFunction hash)
+    {
+        hashFunction = hash;
+        table = slots;
+        capacity = slots.capacity();
+        tombStones = new int[buckets(capacity)];
+        changes = new int[buckets(capacity)];
+        purgeRatio = 0.25;
         manager = m;
+        if (slots.growingInto() != null)
+        {
+            resumeGrowing(slots);
+        }
+
+        int count = 0;
+        for (int pos = 0; pos < capacity; pos++)
+        {
+            if (table.isTombStone(pos))
+            {
+                tombStones[pos / BUCKET_SIZE]++;
+            }
+            else if (!table.isEmpty(pos))
+            {
+                count++;
+            }
+        }
+        for (int pos = 0; oldTable != null && pos < oldCapacity; pos++)
+        {
+            if (!moved[pos / BUCKET_SIZE] && !oldTable.isEmpty(pos)
+                && !oldTable.isTombStone(pos))
+            {
+                count++;
+            }
+        }
+        size = new AtomicInteger(count);
     }
 
     /**
-     * Hash the given string for the given table capacity.
-     * @param s The string to hash
-     * @param m The capacity of the hash table
-     * @return A long representing the index to place the object with the given
-     * string in the hash table
+     * Picks up moving the buckets of slots that were growing when the
+     * program stopped. The slots are left as they were until every bucket
+     * is moved, so a bucket that was not marked as moved is moved again
+     * from the start, once the entries it had already moved are cleared
+     * out of the two buckets it moves into.
+     * @param slots The slots that were growing
      */
-    private long sfold(String s, int m)
+    private void resumeGrowing(SlotArray<V> slots)
     {
-        int intLength = s.length() / 4;
-        long sum = 0;
-        for (int j = 0; j < intLength; j++) {
-            char[] c = s.substring(j * 4, (j * 4) + 4).toCharArray();
-            long mult = 1;
-            for (int k = 0; k < c.length; k++) {
-                sum += c[k] * mult;
-                mult *= 256;
+        oldTable = slots;
+        oldCapacity = slots.capacity();
+        table = slots.growingInto();
+        capacity = table.capacity();
+        tombStones = new int[buckets(capacity)];
+        changes = new int[buckets(capacity)];
+        moved = new boolean[buckets(oldCapacity)];
+        for (int bucket = 0; bucket < moved.length; bucket++)
+        {
+            // the last bucket is moved again if every one was marked, since
+            // the old slots are only let go of by moving a bucket
+            moved[bucket] = slots.isMoved(bucket)
+                && (movedCount < moved.length - 1);
+            if (moved[bucket])
+            {
+                movedCount++;
+                continue;
+            }
+            for (int half = bucket; half < buckets(capacity);
+                half += moved.length)
+            {
+                for (int pos = half * BUCKET_SIZE;
+                    pos < (half + 1) * BUCKET_SIZE; pos++)
+                {
+                    table.clear(pos);
+                }
             }
         }
+        while (nextToMove < moved.length && moved[nextToMove])
+        {
+            nextToMove++;
+        }
+    }
+
+    /**
+     * Sets how many tomb stones a bucket may collect before it is rewritten
+     * without them. A rewritten bucket has its entries moved as close to
+     * their homes as they can go, so searches for missing keys stop early
+     * again.
+     * @param ratio The largest fraction of a bucket that may be tomb stones;
+     * 1 turns the rewriting off
+     */
+    public void setPurgeRatio(double ratio)
+    {
+        purgeRatio = ratio;
+    }
+
+    /**
+     * Makes the table growable. Instead of rejecting a key whose bucket is
+     * full, the table doubles its capacity. It also doubles when the number
+     * of entries goes over the given fraction of the capacity. The capacity
+     * of a growable table must be a multiple of BUCKET_SIZE.
+     * @param loadFactor The largest fraction of the slots that may be filled
+     * before the table grows
+     */
+    public void setGrowable(double loadFactor)
+    {
+        maxLoad = loadFactor;
+    }
+
+    /**
+     * Determines if the table grows instead of rejecting keys.
+     * @return True if the table is growable; false otherwise
+     */
+    public boolean isGrowable()
+    {
+        return maxLoad > 0;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     * @return The capacity of the table
+     */
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Gets the bucket of the table that the given key belongs in.
+     * @param key The key
+     * @return The bucket of the key
+     */
+    int bucketOf(String key)
+    {
+        return hashFunction.hash(key, capacity) / BUCKET_SIZE;
+    }
+
+    /**
+     * Gets the number of buckets for a number of slots.
+     * @param cap The number of slots
+     * @return The number of buckets
+     */
+    static int buckets(int cap)
+    {
+        return (cap + BUCKET_SIZE - 1) / BUCKET_SIZE;
+    }
+
+    /**
+     * Computes a 32-bit fingerprint of the given key. The fingerprint is kept
+     * next to each slot so that a probe only has to read a sequence ID from
+     * the memory file when the fingerprints (and ID lengths) agree.
+     * @param s The key to fingerprint
+     * @return The fingerprint of the key
+     */
+    static int fingerprint(String s)
+    {
+        // FNV-1a over the characters of the key; no objects are allocated
+        int h = 0x811C9DC5;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x01000193;
+        }
+        return h;
+    }
 
-        char[] c = s.substring(intLength * 4).toCharArray();
-        long mult = 1;
-        for (int k = 0; k < c.length; k++) {
-            sum += c[k] * mult;
-            mult *= 256;
+    /**
+     * Determines if the entry in a slot has the given key. The in-memory
+     * fingerprint and ID length are checked first, and the memory file is
+     * only read when both of them match. The sequence ID is then compared
+     * in its packed form, so it never has to be decoded. If there is a
+     * stream for the sequence, the sequence ID is read along with the start
+     * of a sequence stored right after it, and on a match the sequence is
+     * written out from the same bytes.
+     * @param t The slots
+     * @param pos The slot to check
+     * @param key The key to compare against
+     * @param packed The key packed by ASCIIConverter.acgtToBin()
+     * @param fp The fingerprint of the key
+     * @param header The bytes to write before the sequence
+     * @param out The stream to write the sequence of a match to, or null
+     * @return True if the entry has the given key; false otherwise
+     * @throws IOException
+     */
+    private boolean matches(SlotArray<V> t, int pos, String key,
+        byte[] packed, int fp, byte[] header, OutputStream out)
+        throws IOException
+    {
+        if (t.getFingerprint(pos) != fp || t.getIDLength(pos) != key.length())
+        {
+            return false;
+        }
+        if (out == null)
+        {
+            return Arrays.equals(manager.getSeq(t.getIDHandle(pos)), packed);
         }
+        V value = t.get(pos);
+        byte[] record = manager.readRecord(value);
+        if (!Arrays.equals(record, 0, packed.length, packed, 0,
+            packed.length))
+        {
+            return false;
+        }
+        out.write(header);
+        manager.writeSeq(value.getSequenceHandle(), record, packed.length,
+            out);
+        return true;
+    }
 
-        sum = (sum * sum) >> 8;
-        return (Math.abs(sum) % m);
+    /**
+     * Reads the sequence ID in a slot from the memory file.
+     * @param t The slots
+     * @param pos The slot
+     * @return The sequence ID in the slot
+     * @throws IOException
+     */
+    private String readKey(SlotArray<V> t, int pos) throws IOException
+    {
+        Handle idHandle = t.getIDHandle(pos);
+        byte[] seqId = manager.getSeq(idHandle);
+        return ASCIIConverter.binToACGT(seqId, idHandle.getSequenceLength());
     }
 
     /**
@@ -87,191 +344,717 @@ public class HashTable<K, V extends SequenceBundle> {
     }
 
     /**
-     * Removes the entry associated with the given key from the hash table
-     * @param key The key of the entry to remove
-     * @return The value of the removed entry if found; null otherwise
+     * Finds the slot holding the live entry with the given key.
+     * @param t The slots to search
+     * @param key The key to search for
+     * @param packed The packed key
+     * @param fp The fingerprint of the key
+     * @return The slot of the entry if found; -1 otherwise
      * @throws IOException
      */
-    public V remove(K key) throws IOException
+    private int find(SlotArray<V> t, String key, byte[] packed, int fp)
+        throws IOException
+    {
+        return find(t, key, packed, fp, null, null);
+    }
+
+    /**
+     * Finds the slot holding the live entry with the given key, writing its
+     * sequence out once it is found.
+     * @param t The slots to search
+     * @param key The key to search for
+     * @param packed The packed key
+     * @param fp The fingerprint of the key
+     * @param header The bytes to write before the sequence
+     * @param out The stream to write the sequence to, or null
+     * @return The slot of the entry if found; -1 otherwise
+     * @throws IOException
+     */
+    private int find(SlotArray<V> t, String key, byte[] packed, int fp,
+        byte[] header, OutputStream out) throws IOException
     {
-        int home = (int)sfold(key.toString(), capacity);
+        int home = hashFunction.hash(key, t.capacity());
         int pos = home;
 
         for (int i = 1; i <= BUCKET_SIZE; i++)
         {
-            if (table[pos] == null)
+            if (t.isEmpty(pos))
             {
                 // found an empty slot which means the entry is not in the
                 // hash table
-                return null;
+                return -1;
             }
-            else if (!table[pos].getTombStone())
+            else if (!t.isTombStone(pos))
             {
                 // if an entry is not a tomb stone, then we need to check if it
-                // has the same sequenceID as the one we are trying to remove
-                // if it does, then we should tomb-stone it
-                Handle idHandle = table[pos].getIDHandle();
-                byte[] seqId = manager.getSeq(idHandle);
-                String seqIdString = ASCIIConverter.binToACGT(seqId,
-                    idHandle.getSequenceLength());
-                if (seqIdString.equals(key.toString()))
+                // has the same sequenceID as the one we are looking for
+                // if it does, then we have found the entry
+                if (matches(t, pos, key, packed, fp, header, out))
                 {
-                    V seq = table[pos];
-                    table[pos].setTombStone(true);
-                    size--;
-                    return seq;
+                    return pos;
                 }
             }
             pos = probe(home, i);
         }
 
-        return null;
+        return -1;
     }
 
     /**
-     * Searches the hash table for the entries corresponding with the given key
-     * @param key The key to search for
-     * @return The value associated with the key if there is one; null
-     * otherwise
+     * Finds the slot that a new entry with the given key should go into.
+     * @param key The key to insert
+     * @param packed The packed key
+     * @param fp The fingerprint of the key
+     * @param home The home of the key
+     * @return The first empty or tomb-stoned slot in the probe sequence of
+     * the key; DUPLICATE if the key is already in the table or FULL if there
+     * is no room in the bucket
      * @throws IOException
      */
-    public V get(K key) throws IOException
+    private int insertPosition(String key, byte[] packed, int fp, int home)
+        throws IOException
     {
-        int home = (int)sfold(key.toString(), capacity);
         int pos = home;
 
+        int tombStonePos = FULL;
+
         for (int i = 1; i <= BUCKET_SIZE; i++)
         {
-            if (table[pos] == null)
+            if (table.isEmpty(pos))
             {
-                return null;
+                // found an empty slot
+                return (tombStonePos == FULL) ? pos : tombStonePos;
             }
-            else if (!table[pos].getTombStone())
+            else if (table.isTombStone(pos))
             {
-                // if an entry is not a tomb stone, then we need to check if it
-                // has the same sequenceID as the one we are looking for
-                // if it does, then we have found the entry
-                Handle idHandle = table[pos].getIDHandle();
-                byte[] seqId = manager.getSeq(idHandle);
-                String seqIdString = ASCIIConverter.binToACGT(seqId,
-                    idHandle.getSequenceLength());
-                if (seqIdString.equals(key.toString()))
+                // remember the first tomb stone
+                if (tombStonePos == FULL)
                 {
-                    // found the matching entry; return it
-                    return table[pos];
+                    tombStonePos = pos;
                 }
             }
+            else if (matches(table, pos, key, packed, fp, null, null))
+            {
+                // if an entry is not a tomb stone, then we need to check if it
+                // has the same sequenceID as the one we are trying to insert
+                // if it does, then we should reject the insertion
+                return DUPLICATE;
+            }
             pos = probe(home, i);
         }
 
-        return null;
+        return tombStonePos;
     }
 
     /**
-     * Determines if the given key can be inserted into the hash table.
-     * @param key The key to insert
-     * @return True if there is an empty space or a tomb stone to overwrite and
-     * an entry with the same key is not already in the hash table; false
-     * otherwise
-     * @throws IOException
+     * Places an entry in the first empty or tomb-stoned slot of its probe
+     * sequence without checking for duplicates.
+     * @param home The home of the entry
+     * @param fp The fingerprint of the key of the entry
+     * @param value The entry
+     * @return True if the entry was placed; false if the bucket is full
      */
-    public boolean canInsert(K key) throws IOException
+    private boolean place(int home, int fp, V value)
     {
-        int home = (int)sfold(key.toString(), capacity);
         int pos = home;
 
-        boolean foundTombStone = false;
-
         for (int i = 1; i <= BUCKET_SIZE; i++)
         {
-            if (table[pos] == null)
+            if (table.isEmpty(pos) || table.isTombStone(pos))
             {
-                // found an empty slot
+                set(pos, home, fp, value);
                 return true;
             }
-            else if (table[pos].getTombStone() && !foundTombStone)
+            pos = probe(home, i);
+        }
+        return false;
+    }
+
+    /**
+     * Puts an entry into a slot that is empty or tomb-stoned.
+     * @param pos The slot
+     * @param home The home of the entry
+     * @param fp The fingerprint of the key of the entry
+     * @param value The entry
+     */
+    private void set(int pos, int home, int fp, V value)
+    {
+        changes[pos / BUCKET_SIZE]++;
+        if (table.isTombStone(pos))
+        {
+            tombStones[pos / BUCKET_SIZE]--;
+        }
+        table.set(pos, value, fp, home % BUCKET_SIZE);
+        if (located != null)
+        {
+            locate(pos, value);
+        }
+    }
+
+    /**
+     * Records the slot of the handles of an entry by their file locations.
+     * Empty handles take no bytes and are not recorded.
+     * @param pos The slot of the entry
+     * @param value The entry
+     */
+    private void locate(int pos, V value)
+    {
+        Handle id = value.getIDHandle();
+        Handle seq = value.getSequenceHandle();
+        if (id.getSequenceLength() > 0)
+        {
+            located.put(id.getFileLocation(), pos << 1);
+        }
+        if (seq.getSequenceLength() > 0)
+        {
+            located.put(seq.getFileLocation(), (pos << 1) | 1);
+        }
+    }
+
+    /**
+     * Tomb-stones the entry in a slot. If the slot after it is empty, no probe
+     * sequence can go past the slot, so it is emptied instead, along with any
+     * tomb stones right before it. If the bucket then has too many tomb
+     * stones, it is rewritten.
+     * @param pos The slot of the entry
+     */
+    private void tombStone(int pos)
+    {
+        int bucket = pos / BUCKET_SIZE;
+        changes[bucket]++;
+        if (located != null)
+        {
+            V value = table.get(pos);
+            located.remove(value.getIDHandle().getFileLocation(), pos << 1);
+            located.remove(value.getSequenceHandle().getFileLocation(),
+                (pos << 1) | 1);
+        }
+        table.setTombStone(pos);
+        tombStones[bucket]++;
+
+        while (table.isTombStone(pos) && table.isEmpty(probe(pos, 1)))
+        {
+            table.clear(pos);
+            tombStones[bucket]--;
+            pos = probe(pos, BUCKET_SIZE - 1);
+        }
+
+        if (tombStones[bucket] > purgeRatio * BUCKET_SIZE)
+        {
+            purge(bucket);
+        }
+    }
+
+    /**
+     * Rewrites a bucket without its tomb stones. The live entries are taken
+     * out and placed again from their homes, which are kept with the slots
+     * so no keys have to be read.
+     * @param bucket The bucket to rewrite
+     */
+    @SuppressWarnings("unchecked")
+    private void purge(int bucket)
+    {
+        int start = bucket * BUCKET_SIZE;
+        int end = Math.min(start + BUCKET_SIZE, capacity);
+        V[] live = (V[])new SequenceBundle[end - start];
+        int[] liveFps = new int[end - start];
+        int[] liveHomes = new int[end - start];
+        int count = 0;
+        for (int pos = start; pos < end; pos++)
+        {
+            if (!table.isEmpty(pos) && !table.isTombStone(pos))
             {
-                // found the first tomb stone
-                foundTombStone = true;
+                live[count] = table.get(pos);
+                liveFps[count] = table.getFingerprint(pos);
+                liveHomes[count] = start + table.getHome(pos);
+                count++;
             }
-            else if (!table[pos].getTombStone())
+            table.clear(pos);
+        }
+        tombStones[bucket] = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            place(liveHomes[i], liveFps[i], live[i]);
+        }
+    }
+
+    /**
+     * Doubles the capacity of the table. The entries stay in the old table
+     * until the bucket they are in is moved. A table that is still moving
+     * the buckets of its last growth does not grow again when it fills up;
+     * the operations that come keep moving them a bucket or two at a time,
+     * and the table grows at the first insert after they are all moved. A
+     * table of more than MAX_CAPACITY / 2 slots does not grow either.
+     * @return True if the table grew; false if it is still moving buckets
+     * or is as big as it can get
+     */
+    private boolean grow()
+    {
+        if (oldTable != null || capacity > MAX_CAPACITY / 2)
+        {
+            return false;
+        }
+        generation++;
+        oldCapacity = capacity;
+        moved = new boolean[buckets(oldCapacity)];
+        movedCount = 0;
+        nextToMove = 0;
+        oldTable = table;
+
+        capacity *= 2;
+        table = oldTable.newSlots(capacity);
+        tombStones = new int[buckets(capacity)];
+        changes = new int[buckets(capacity)];
+        return true;
+    }
+
+    /**
+     * Determines if the table grows in the middle of the insert that needs
+     * it to. ConcurrentHashTable only grows once the insert has let go of the
+     * bucket of its key, so it returns false.
+     * @return True if inserts grow the table themselves
+     */
+    protected boolean growsInline()
+    {
+        return true;
+    }
+
+    /**
+     * Determines if doubling the table would make room for a key in its
+     * full bucket. The entries of the bucket are split between two buckets
+     * of the doubled table, and there is room for the key only if one of
+     * them goes to the other bucket than the key. Keys that share a home at
+     * every capacity never split, and the table does not grow for them.
+     * @param k The key
+     * @param home The home of the key
+     * @return True if at least one entry of the bucket would leave it
+     * @throws IOException
+     */
+    private boolean splits(String k, int home) throws IOException
+    {
+        if (capacity > MAX_CAPACITY / 2)
+        {
+            return false;
+        }
+        int bucket = hashFunction.hash(k, capacity * 2) / BUCKET_SIZE;
+        int start = (home / BUCKET_SIZE) * BUCKET_SIZE;
+        int end = Math.min(start + BUCKET_SIZE, capacity);
+        for (int pos = start; pos < end; pos++)
+        {
+            if (!table.isEmpty(pos) && !table.isTombStone(pos)
+                && hashFunction.hash(readKey(table, pos), capacity * 2)
+                / BUCKET_SIZE != bucket)
             {
-                // if an entry is not a tomb stone, then we need to check if it
-                // has the same sequenceID as the one we are trying to insert
-                // if it does, then we should reject the insertion
-                Handle idHandle = table[pos].getIDHandle();
-                byte[] seqId = manager.getSeq(idHandle);
-                String seqIdString = ASCIIConverter.binToACGT(seqId,
-                    idHandle.getSequenceLength());
-                if (seqIdString.equals(key.toString()))
-                {
-                    System.out.printf("SequenceID %s exists\n", key);
-                    return false;
-                }
+                return true;
             }
-            pos = probe(home, i);
         }
+        return false;
+    }
 
-        if (!foundTombStone) {
+    /**
+     * Grows the table if an insert found that it has to but left the growing
+     * to its caller. The buckets of the last growth are all moved first.
+     * @throws IOException
+     */
+    void growIfDue() throws IOException
+    {
+        if (growthDue)
+        {
+            growthDue = false;
+            finishMoving();
+            grow();
+        }
+    }
+
+    /**
+     * Determines if an insert left the growing of the table to its caller.
+     * @return True if the table has to grow
+     */
+    boolean isGrowthDue()
+    {
+        return growthDue;
+    }
+
+    /**
+     * Gets a stamp of the changes made to a bucket. The stamp is different
+     * once an entry of the bucket has been changed or the table has grown.
+     * @param bucket The bucket
+     * @return The stamp of the bucket
+     */
+    private long stamp(int bucket)
+    {
+        return ((long)generation << 32) | (changes[bucket] & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Moves the live entries of a bucket of the old table into the table.
+     * Because the home of a key in the old table is its home in the table
+     * modulo the old capacity, the entries of one old bucket can only land in
+     * two buckets of the table, and no other old bucket feeds those two.
+     * @param bucket The bucket of the old table to move
+     * @throws IOException
+     */
+    void moveBucket(int bucket) throws IOException
+    {
+        SlotArray<V> oldTable = this.oldTable;
+        if (oldTable == null || moved[bucket])
+        {
+            return;
+        }
+        int end = Math.min((bucket + 1) * BUCKET_SIZE, oldCapacity);
+        for (int pos = bucket * BUCKET_SIZE; pos < end; pos++)
+        {
+            if (!oldTable.isEmpty(pos) && !oldTable.isTombStone(pos))
+            {
+                place(hashFunction.hash(readKey(oldTable, pos), capacity),
+                    oldTable.getFingerprint(pos), oldTable.get(pos));
+            }
+        }
+        // the old slots are left as they are, so a table kept in a file is
+        // whole if the program stops partway through a bucket
+        oldTable.setMoved(bucket);
+
+        // buckets may be moved by more than one thread of a
+        // ConcurrentHashTable, so the count of moved buckets is kept in step
+        synchronized (this)
+        {
+            moved[bucket] = true;
+            movedCount++;
+            while (nextToMove < moved.length && moved[nextToMove])
+            {
+                nextToMove++;
+            }
+            if (movedCount == moved.length)
+            {
+                // every bucket has been moved; the old table is no longer
+                // needed
+                this.oldTable = null;
+                oldTable.discard();
+            }
+        }
+    }
+
+    /**
+     * Moves the bucket of the old table that the given key would be in, so
+     * that the key's bucket in the table can be changed, followed by the next
+     * bucket that has not been moved yet.
+     * @param key The key that is about to be inserted or removed
+     * @throws IOException
+     */
+    private void moveStep(String key) throws IOException
+    {
+        if (oldTable != null)
+        {
+            moveBucket(hashFunction.hash(key, oldCapacity) / BUCKET_SIZE);
+        }
+        int next = nextToMove;
+        if (oldTable != null && next < moved.length)
+        {
+            sweep(next);
+        }
+    }
+
+    /**
+     * Moves a bucket of the old table that no key asked for, so that growing
+     * comes to an end even if the same buckets are used over and over.
+     * ConcurrentHashTable skips the bucket if another thread is using it.
+     * @param bucket The bucket of the old table to move
+     * @throws IOException
+     */
+    protected void sweep(int bucket) throws IOException
+    {
+        moveBucket(bucket);
+    }
+
+    /**
+     * Moves every remaining bucket of the old table into the table.
+     * @throws IOException
+     */
+    private void finishMoving() throws IOException
+    {
+        while (oldTable != null)
+        {
+            moveBucket(nextToMove);
+        }
+    }
+
+    /**
+     * Removes the entry associated with the given key from the hash table
+     * @param key The key of the entry to remove
+     * @return The value of the removed entry if found; null otherwise
+     * @throws IOException
+     */
+    public V remove(K key) throws IOException
+    {
+        String k = key.toString();
+        int fp = fingerprint(k);
+        // the key is packed once, and every probe compares against it
+        byte[] packed = ASCIIConverter.acgtToBin(k);
+        moveStep(k);
+
+        int pos = find(table, k, packed, fp);
+        if (pos == -1)
+        {
+            return null;
+        }
+        // the entry is tomb-stoned rather than emptied so that the probe
+        // sequences of the entries after it are not broken
+        V seq = table.get(pos);
+        tombStone(pos);
+        seq.setTombStone(true);
+        size.decrementAndGet();
+        return seq;
+    }
+
+    /**
+     * Searches the hash table for the entries corresponding with the given key
+     * @param key The key to search for
+     * @return The value associated with the key if there is one; null
+     * otherwise
+     * @throws IOException
+     */
+    public V get(K key) throws IOException
+    {
+        return lookUp(key.toString(), null, null);
+    }
+
+    /**
+     * Searches the hash table for the entry with the given key and writes
+     * its sequence out as characters, after a header. When the sequence is
+     * stored right after its sequence ID, the two are read from the memory
+     * file together, so a hit costs one read for a short sequence.
+     * @param key The key to search for
+     * @param header The bytes to write before the sequence if it is found
+     * @param out The stream to write the sequence to, or null to only find
+     * the entry
+     * @return The value associated with the key if there is one; null
+     * otherwise
+     * @throws IOException
+     */
+    public V search(K key, byte[] header, OutputStream out)
+        throws IOException
+    {
+        return lookUp(key.toString(), header, out);
+    }
+
+    /**
+     * Finds the entry with the given key in the table, or in the old table
+     * if its bucket has not been moved yet.
+     * @param k The key to search for
+     * @param header The bytes to write before the sequence if it is found
+     * @param out The stream to write the sequence to, or null
+     * @return The value associated with the key if there is one; null
+     * otherwise
+     * @throws IOException
+     */
+    private V lookUp(String k, byte[] header, OutputStream out)
+        throws IOException
+    {
+        int fp = fingerprint(k);
+        byte[] packed = ASCIIConverter.acgtToBin(k);
+
+        int pos = find(table, k, packed, fp, header, out);
+        if (pos != -1)
+        {
+            // found the matching entry; return it
+            return table.get(pos);
+        }
+        SlotArray<V> oldTable = this.oldTable;
+        if (oldTable != null
+            && !moved[hashFunction.hash(k, oldCapacity) / BUCKET_SIZE])
+        {
+            // the key may still be in a bucket that has not been moved
+            pos = find(oldTable, k, packed, fp, header, out);
+            if (pos != -1)
+            {
+                return oldTable.get(pos);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines if the given key can be inserted into the hash table.
+     * @param key The key to insert
+     * @return True if there is an empty space or a tomb stone to overwrite and
+     * an entry with the same key is not already in the hash table; false
+     * otherwise. A growable table always has room.
+     * @throws IOException
+     */
+    public boolean canInsert(K key) throws IOException
+    {
+        String k = key.toString();
+        int fp = fingerprint(k);
+        byte[] packed = ASCIIConverter.acgtToBin(k);
+        moveStep(k);
+
+        int pos = insertPosition(k, packed, fp,
+            hashFunction.hash(k, capacity));
+        if (pos == DUPLICATE)
+        {
+            System.out.printf("SequenceID %s exists\n", key);
+            return false;
+        }
+        if (pos == FULL && !isGrowable())
+        {
             System.out.printf("Bucket full. "
                 + "Sequence %s could not be inserted\n", key);
+            return false;
         }
-        return foundTombStone;
+        return true;
     }
 
     /**
      * Inserts the value associated with the key into the hash table.
      * @param key The key to determine where to place the value
      * @param value The value to place in the hash table
+     * @return True if the value was inserted; false if the key is already in
+     * the table or there is no room for it
      * @throws IOException
      */
-    public void insert(K key, V value) throws IOException
+    public boolean insert(K key, V value) throws IOException
     {
-        int home = (int)sfold(key.toString(), capacity);
-        int pos = home;
+        Reservation r = reserve(key.toString());
+        if (r.getStatus() == Reservation.Status.BUCKET_FULL && isGrowable())
+        {
+            // the keys of the bucket all share a home at every capacity, so
+            // growing would not split them
+            report(r);
+        }
+        if (!r.isReserved())
+        {
+            return false;
+        }
+        return commit(r, value);
+    }
+
+    /**
+     * Probes for the given key once and reserves the slot a new entry with
+     * that key should go into. Unlike canInsert() followed by insert(), the
+     * bucket is only searched once: the caller can store the sequence ID and
+     * sequence and then commit() the entry straight to the reserved slot.
+     * @param key The key to insert
+     * @return A Reservation that is RESERVED if the key can be inserted,
+     * DUPLICATE if it is already in the table or BUCKET_FULL if there is no
+     * room for it
+     * @throws IOException
+     */
+    public Reservation putIfAbsent(K key) throws IOException
+    {
+        Reservation r = reserve(key.toString());
+        report(r);
+        return r;
+    }
 
-        boolean foundTombStone = false;
-        int tombStonePos = -1;
+    /**
+     * Prints why a key could not be reserved, if it could not.
+     * @param r The Reservation for the key
+     */
+    void report(Reservation r)
+    {
+        if (r.getStatus() == Reservation.Status.DUPLICATE)
+        {
+            System.out.printf("SequenceID %s exists\n", r.getKey());
+        }
+        else if (r.getStatus() == Reservation.Status.BUCKET_FULL)
+        {
+            System.out.printf("Bucket full. "
+                + "Sequence %s could not be inserted\n", r.getKey());
+        }
+    }
 
-        for (int i = 1; i <= BUCKET_SIZE; i++)
+    /**
+     * Stores an entry in the slot reserved for it by putIfAbsent(). If the
+     * table was changed since the slot was reserved, the key is probed for
+     * again instead.
+     * @param r The Reservation for the entry
+     * @param value The value to place in the hash table
+     * @return True if the value was inserted; false if the key was inserted
+     * by someone else or the table ran out of room since the reservation
+     * @throws IOException
+     */
+    public boolean commit(Reservation r, V value) throws IOException
+    {
+        if (!r.isReserved())
         {
-            if (table[pos] == null)
+            throw new IllegalStateException("No slot was reserved for "
+                + r.getKey());
+        }
+        if (r.getStamp() != stamp(r.getSlot() / BUCKET_SIZE))
+        {
+            r = reserve(r.getKey());
+            if (!r.isReserved())
             {
-                // found an empty slot
-                table[pos] = value;
-                size++;
-                return;
+                return false;
             }
-            else if (table[pos].getTombStone() && !foundTombStone)
+        }
+
+        set(r.getSlot(), r.getHome(), r.getFingerprint(), value);
+        int count = size.incrementAndGet();
+
+        if (isGrowable() && count > maxLoad * capacity)
+        {
+            if (growsInline())
             {
-                // found the first tomb stone
-                foundTombStone = true;
-                tombStonePos = pos;
-                break;
+                grow();
             }
-            else if (!table[pos].getTombStone())
+            else if (oldTable == null)
             {
-                // if an entry is not a tomb stone, then we need to check if it
-                // has the same sequenceID as the one we are trying to insert
-                // if it does, then we should reject the insertion
-                Handle idHandle = table[pos].getIDHandle();
-                byte[] seqId = manager.getSeq(idHandle);
-                String seqIdString = ASCIIConverter.binToACGT(seqId,
-                    idHandle.getSequenceLength());
-                if (seqIdString.equals(key.toString()))
-                {
-                    return;
-                }
+                growthDue = true;
             }
-            pos = probe(home, i);
         }
+        return true;
+    }
+
+    /**
+     * Finds the slot that a new entry with the given key should go into,
+     * growing the table if the bucket of the key is full and growing splits
+     * it. If the table does not grow inline, it is marked as due to grow and
+     * the Reservation is BUCKET_FULL.
+     * @param k The key to insert
+     * @return A Reservation of the slot
+     * @throws IOException
+     */
+    Reservation reserve(String k) throws IOException
+    {
+        int fp = fingerprint(k);
+        byte[] packed = ASCIIConverter.acgtToBin(k);
+        moveStep(k);
 
-        if (foundTombStone)
+        int home = hashFunction.hash(k, capacity);
+        int pos = insertPosition(k, packed, fp, home);
+        // the bucket overflowed, so the table doubles if that splits the
+        // keys of the bucket; the buckets of the last growth are all moved
+        // first, which only a bucket that fills before they are can cost
+        if (pos == FULL && isGrowable() && splits(k, home))
         {
-            table[tombStonePos] = value;
-            size++;
+            if (!growsInline())
+            {
+                growthDue = true;
+            }
+            else
+            {
+                finishMoving();
+                grow();
+                moveStep(k);
+                home = hashFunction.hash(k, capacity);
+                pos = insertPosition(k, packed, fp, home);
+            }
         }
 
+        Reservation.Status status = Reservation.Status.RESERVED;
+        if (pos == DUPLICATE)
+        {
+            status = Reservation.Status.DUPLICATE;
+        }
+        else if (pos == FULL)
+        {
+            status = Reservation.Status.BUCKET_FULL;
+        }
+        return new Reservation(status, k, Math.max(pos, -1), home, fp,
+            stamp(home / BUCKET_SIZE));
     }
 
     /**
@@ -280,28 +1063,146 @@ public class HashTable<K, V extends SequenceBundle> {
      */
     public void printTable() throws IOException
     {
+        // a growing table is printed once all of its entries are in place
+        finishMoving();
         for (int h = 0; h < capacity; h++) {
-            if (table[h] != null && !table[h].getTombStone() &&
-                (table[h].getIDHandle() != null ||
-                table[h].getSequenceHandle() != null))
+            if (!table.isEmpty(h) && !table.isTombStone(h))
             {
-                byte[] seq = manager.getSeq(table[h].getIDHandle());
-                int lengthInLetters = table[h].getIDHandle()
-                    .getSequenceLength();
-                System.out.printf("%s: hash slot [%d]\n",
-                    ASCIIConverter.binToACGT(seq, lengthInLetters), h);
+                System.out.printf("%s: hash slot [%d]\n", readKey(table, h),
+                    h);
             }
         }
         return;
     }
 
+    /**
+     * Gets every live entry of the hash table.
+     * @return The entries, in the order of their slots
+     * @throws IOException
+     */
+    public List<V> entries() throws IOException
+    {
+        finishMoving();
+        List<V> entries = new ArrayList<V>(size.get());
+        for (int pos = 0; pos < capacity; pos++)
+        {
+            if (!table.isEmpty(pos) && !table.isTombStone(pos))
+            {
+                entries.add(table.get(pos));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Compacts the memory file a few sequences at a time, so it can be done
+     * between commands. The sequence ID or sequence right after the first
+     * free block is slid down over it, which moves the free block up to the
+     * next one, and the handle in its slot is changed to where it went. The
+     * free space that this pushes to the end of the file is cut off. The
+     * first call records where every handle is, and the records are kept up
+     * to date from then on, so each move after that is found directly.
+     * @param maxMoves The most sequence IDs and sequences to move
+     * @return The number that were moved; 0 once the file is packed
+     * @throws IOException
+     */
+    public int compact(int maxMoves) throws IOException
+    {
+        finishMoving();
+        if (located == null)
+        {
+            located = new ConcurrentHashMap<Long, Integer>();
+            for (int pos = 0; pos < capacity; pos++)
+            {
+                if (!table.isEmpty(pos) && !table.isTombStone(pos))
+                {
+                    locate(pos, table.get(pos));
+                }
+            }
+        }
+
+        int moves = 0;
+        while (moves < maxMoves)
+        {
+            Integer record = located.remove(manager.afterFirstFree());
+            if (record == null)
+            {
+                // the file is packed, or the bytes after the free block are
+                // not the table's
+                break;
+            }
+            int pos = record >>> 1;
+            V value = table.get(pos);
+            boolean isSequence = (record & 1) == 1;
+            Handle handle = isSequence ? value.getSequenceHandle()
+                : value.getIDHandle();
+            Handle moved = manager.slideDown(handle);
+            if (moved == handle)
+            {
+                // the memory file holds its frees and the free block is too
+                // small for it
+                located.put(handle.getFileLocation(), record);
+                break;
+            }
+            if (isSequence)
+            {
+                value.setSequenceHandle(moved);
+            }
+            else
+            {
+                value.setIDHandle(moved);
+                Handle seq = value.getSequenceHandle();
+                if (seq.getSequenceLength() == 0)
+                {
+                    // an empty sequence takes no bytes, and stays where it
+                    // was next to its ID
+                    value.setSequenceHandle(new Handle(seq.getFileLocation()
+                        - handle.getFileLocation() + moved.getFileLocation(),
+                        0));
+                }
+            }
+            // the slot is set again, so reservations of its bucket are
+            // probed again
+            set(pos, table.getHome(pos), table.getFingerprint(pos), value);
+            moves++;
+        }
+        return moves;
+    }
+
+    /**
+     * Forces the slots to disk if they are kept in a file, along with the
+     * slots of the old table if the table is growing, so a WriteAheadLog
+     * can be emptied.
+     * @throws IOException
+     */
+    public void force() throws IOException
+    {
+        SlotArray<V> oldTable = this.oldTable;
+        if (oldTable != null)
+        {
+            oldTable.force();
+        }
+        table.force();
+    }
+
+    /**
+     * Finishes growing the table and closes its slots, writing them out if
+     * they are kept in a file.
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+        finishMoving();
+        table.close();
+    }
+
     /**
      * Gets the size of the hash table
      * @return The size of the hash table
      */
     public int size()
     {
-        return size;
+        return size.get();
     }
 
     /**
@@ -309,24 +1210,27 @@ public class HashTable<K, V extends SequenceBundle> {
      *
      * @return last : The object with the highest file location, denoting that
      *                it's the last filled block (SequenceBundle) in the file
+     * @throws IOException
      */
-    public SequenceBundle getLast() {
+    public SequenceBundle getLast() throws IOException {
+        finishMoving();
         SequenceBundle last = new SequenceBundle(false, new Handle(0, 0),
             new Handle(0, 0));
-        int max = 0;
-        for (int t = 0; t < table.length; t++) {
-            if (table[t] != null && table[t] instanceof SequenceBundle) {
-                if (table[t].getIDHandle().getFileLocation() > max) {
-                    max = table[t].getIDHandle().getFileLocation();
-                    last = table[t];
+        long max = 0;
+        for (int t = 0; t < capacity; t++) {
+            if (!table.isEmpty(t)) {
+                SequenceBundle entry = table.get(t);
+                if (entry.getIDHandle().getFileLocation() > max) {
+                    max = entry.getIDHandle().getFileLocation();
+                    last = entry;
                 }
-                if (table[t].getSequenceHandle().getFileLocation() > max) {
-                    max = table[t].getSequenceHandle().getFileLocation();
-                    last = table[t];
+                if (entry.getSequenceHandle().getFileLocation() > max) {
+                    max = entry.getSequenceHandle().getFileLocation();
+                    last = entry;
                 }
             }
         }
 
         return last;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 import student.TestCase;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
@@ -15,6 +16,7 @@ import java.io.IOException;
 public class HashTableTest<K, V extends SequenceBundle> extends TestCase {
 
     private HashTable<String, SequenceBundle> hashTable;
+    private MemoryManager mem;
 
     /**
      * The setup of this test will instantiate the hash table, for testing, and
@@ -23,7 +25,7 @@ public class HashTableTest<K, V extends SequenceBundle> extends TestCase {
     public void setUp() throws IOException
     {
         int size = 32;
-        MemoryManager mem = new MemoryManager("memoryfile.bin", size);
+        mem = new MemoryManager("memoryfile.bin", size);
         hashTable = new HashTable<String, SequenceBundle>(SequenceBundle.class,
             size, mem);
 
@@ -43,4 +45,399 @@ public class HashTableTest<K, V extends SequenceBundle> extends TestCase {
 
         assertEquals(hashTable.size(), 0);
     }
+
+    /**
+     * tests that entries are found again through their fingerprints and that
+     * keys with the same length but a different fingerprint are not matched
+     * @throws IOException
+     */
+    public void testFingerprint() throws IOException {
+        assertEquals(HashTable.fingerprint("ACGT"),
+            HashTable.fingerprint("ACGT"));
+        assertFalse(HashTable.fingerprint("ACGT") ==
+            HashTable.fingerprint("ACGA"));
+
+        Handle idHandle = mem.insertSeq("ACGT", 32);
+        Handle seqHandle = mem.insertSeq("GGCC", 32);
+        SequenceBundle val = new SequenceBundle(false, idHandle, seqHandle);
+        assertTrue(hashTable.canInsert("ACGT"));
+        hashTable.insert("ACGT", val);
+
+        assertEquals(hashTable.get("ACGT"), val);
+        assertNull(hashTable.get("ACGA"));
+        assertNull(hashTable.get("ACG"));
+        assertFalse(hashTable.canInsert("ACGT"));
+        assertEquals(hashTable.size(), 1);
+    }
+
+    /**
+     * tests that a growable table doubles instead of rejecting sequences and
+     * that every entry can still be found while it is being moved
+     * @throws IOException
+     */
+    public void testGrowable() throws IOException {
+        hashTable = new HashTable<String, SequenceBundle>(
+            SequenceBundle.class, 32, mem, new MixHash());
+        hashTable.setGrowable(0.75);
+        assertTrue(hashTable.isGrowable());
+
+        String[] keys = new String[100];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            Handle idHandle = mem.insertSeq(keys[i], 32);
+            Handle seqHandle = mem.insertSeq("ACGT", 32);
+            assertTrue(hashTable.canInsert(keys[i]));
+            assertTrue(hashTable.insert(keys[i], new SequenceBundle(false,
+                idHandle, seqHandle)));
+            for (int j = 0; j <= i; j++) {
+                assertNotNull(hashTable.get(keys[j]));
+            }
+        }
+        assertEquals(hashTable.size(), 100);
+        assertEquals(hashTable.capacity(), 256);
+
+        for (int i = 0; i < keys.length; i += 2) {
+            assertNotNull(hashTable.remove(keys[i]));
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(hashTable.get(keys[i]) == null, i % 2 == 0);
+        }
+        assertEquals(hashTable.size(), 50);
+    }
+
+    /**
+     * tests that a growable table does not grow for keys that share a home
+     * at every capacity, since growing would not split them
+     * @throws IOException
+     */
+    public void testSkewedKeys() throws IOException {
+        hashTable = new HashTable<String, SequenceBundle>(
+            SequenceBundle.class, 64, mem, new HashFunction() {
+                public int hash(String key, int capacity)
+                {
+                    return 5;
+                }
+            });
+        hashTable.setGrowable(0.75);
+        int inserted = 0;
+        for (int i = 0; i < 35; i++) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            Handle idHandle = mem.insertSeq(key, 32);
+            if (hashTable.insert(key, new SequenceBundle(false, idHandle,
+                idHandle))) {
+                inserted++;
+            }
+        }
+        assertEquals(inserted, 32);
+        assertEquals(hashTable.capacity(), 64);
+    }
+
+    /**
+     * tests that a table that fills up again before it has moved the
+     * buckets of its last growth keeps moving them a bucket or two at a time
+     * instead of all at once
+     * @throws IOException
+     */
+    public void testGrowWhileMoving() throws IOException {
+        hashTable = new HashTable<String, SequenceBundle>(
+            SequenceBundle.class, 256, mem, new MixHash());
+        hashTable.setGrowable(0.001);
+        String[] keys = new String[20];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            Handle idHandle = mem.insertSeq(keys[i], 32);
+            assertTrue(hashTable.insert(keys[i], new SequenceBundle(false,
+                idHandle, idHandle)));
+            if (i == 1) {
+                // the 8 buckets of the first growth are not all moved yet
+                assertEquals(hashTable.capacity(), 512);
+            }
+        }
+        assertTrue(hashTable.capacity() > 512);
+        for (int i = 0; i < keys.length; i++) {
+            assertNotNull(hashTable.get(keys[i]));
+        }
+        assertEquals(hashTable.size(), keys.length);
+    }
+
+    /**
+     * tests that a bucket that overflows before the buckets of the last
+     * growth are all moved makes the table grow again, if that splits it
+     * @throws IOException
+     */
+    public void testOverflowWhileMoving() throws IOException {
+        // the home of a key is the number its bases spell
+        hashTable = new HashTable<String, SequenceBundle>(
+            SequenceBundle.class, 256, mem, new HashFunction() {
+                public int hash(String key, int capacity)
+                {
+                    int v = 0;
+                    for (int i = 0; i < key.length(); i++) {
+                        v = v * 4 + "ACGT".indexOf(key.charAt(i));
+                    }
+                    return v % capacity;
+                }
+            });
+        hashTable.setGrowable(0.5);
+        // bucket 0 is left one slot short of full at every capacity, and
+        // the 129th entry makes the table grow to 512
+        int[] values = new int[131];
+        for (int i = 0; i < 129; i++) {
+            values[i] = (i < 31) ? i : i + 1;
+        }
+        // the first fills bucket 0 of the grown table, and the second
+        // overflows it while most buckets are still to be moved
+        values[129] = 512 + 31;
+        values[130] = 1024 + 5;
+        for (int i = 0; i < values.length; i++) {
+            String key = spell(values[i]);
+            Handle idHandle = mem.insertSeq(key, 32);
+            assertTrue(hashTable.insert(key, new SequenceBundle(false,
+                idHandle, idHandle)));
+            if (i == 129) {
+                assertEquals(hashTable.capacity(), 512);
+            }
+        }
+        assertEquals(hashTable.capacity(), 1024);
+        for (int i = 0; i < values.length; i++) {
+            assertNotNull(hashTable.get(spell(values[i])));
+        }
+        assertEquals(hashTable.size(), values.length);
+    }
+
+    /**
+     * Spells a number in 8 bases, 2 bits to a base.
+     * @param v The number
+     * @return The bases
+     */
+    private static String spell(int v) {
+        StringBuilder bases = new StringBuilder();
+        for (int i = 7; i >= 0; i--) {
+            bases.append("ACGT".charAt((v >> (2 * i)) & 3));
+        }
+        return bases.toString();
+    }
+
+    /**
+     * tests that removed entries are purged from a bucket without losing the
+     * entries that are left in it
+     * @throws IOException
+     */
+    public void testPurge() throws IOException {
+        hashTable = new HashTable<String, SequenceBundle>(
+            SequenceBundle.class, 32, mem, new MixHash());
+        hashTable.setPurgeRatio(0.1);
+
+        String[] keys = new String[53];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+        }
+        for (int i = 0; i < 32; i++) {
+            Handle idHandle = mem.insertSeq(keys[i], 32);
+            assertTrue(hashTable.insert(keys[i], new SequenceBundle(false,
+                idHandle, idHandle)));
+        }
+        // every entry except every third one is removed
+        for (int i = 0; i < 32; i++) {
+            if (i % 3 != 0) {
+                assertNotNull(hashTable.remove(keys[i]));
+            }
+        }
+        for (int i = 0; i < 32; i++) {
+            assertEquals(hashTable.get(keys[i]) == null, i % 3 != 0);
+        }
+        // the removed entries leave room for new ones
+        for (int i = 32; i < keys.length; i++) {
+            Handle idHandle = mem.insertSeq(keys[i], 32);
+            assertTrue(hashTable.insert(keys[i], new SequenceBundle(false,
+                idHandle, idHandle)));
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(hashTable.get(keys[i]) == null,
+                i < 32 && i % 3 != 0);
+        }
+        assertEquals(hashTable.size(), 32);
+    }
+
+    /**
+     * tests that a table with packed slots behaves like one with objects
+     * @throws IOException
+     */
+    public void testPackedSlots() throws IOException {
+        hashTable = new HashTable<String, SequenceBundle>(new PackedSlots(32),
+            mem, new MixHash());
+        hashTable.setGrowable(0.75);
+
+        for (int i = 0; i < 40; i++) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            Handle idHandle = mem.insertSeq(key, 32);
+            Handle seqHandle = mem.insertSeq("GATTACA", 32);
+            assertTrue(hashTable.insert(key, new SequenceBundle(false,
+                idHandle, seqHandle)));
+        }
+        for (int i = 0; i < 40; i++) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            SequenceBundle found = hashTable.get(key);
+            assertEquals(found.getSequenceHandle().getSequenceLength(), 7);
+            assertFalse(hashTable.canInsert(key));
+        }
+        SequenceBundle removed = hashTable.remove("AAAA");
+        assertTrue(removed.getTombStone());
+        assertNull(hashTable.get("AAAA"));
+        assertEquals(hashTable.size(), 39);
+    }
+
+    /**
+     * tests that search writes out the sequence of the entry it finds,
+     * whether or not the sequence is stored right after its ID, and however
+     * long it is
+     * @throws IOException
+     */
+    public void testSearch() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 70001; i++) {
+            builder.append("ACGT".charAt((i * 5 + i / 7) % 4));
+        }
+        String longSequence = builder.toString();
+        hashTable.insert("GATTACA", mem.insertRecord("GATTACA", "CCGT"));
+        hashTable.insert("CAT", mem.insertRecord("CAT", longSequence));
+        hashTable.insert("TT", new SequenceBundle(false,
+            mem.insertSeq("TT", 32), mem.insertSeq("AAC", 32)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] header = "> ".getBytes();
+        assertNotNull(hashTable.search("GATTACA", header, out));
+        assertEquals(out.toString(), "> CCGT");
+        out.reset();
+        assertNotNull(hashTable.search("CAT", header, out));
+        assertEquals(out.toString(), "> " + longSequence);
+        out.reset();
+        assertNotNull(hashTable.search("TT", header, out));
+        assertEquals(out.toString(), "> AAC");
+        out.reset();
+        assertNull(hashTable.search("GATTAC", header, out));
+        assertEquals(out.size(), 0);
+    }
+
+    /**
+     * tests putIfAbsent and commit
+     * @throws IOException
+     */
+    public void testPutIfAbsent() throws IOException {
+        Reservation r = hashTable.putIfAbsent("GATTACA");
+        assertTrue(r.isReserved());
+        assertEquals(r.getStatus(), Reservation.Status.RESERVED);
+        assertTrue(r.getSlot() >= 0 && r.getSlot() < 32);
+
+        Handle idHandle = mem.insertSeq("GATTACA", 32);
+        SequenceBundle val = new SequenceBundle(false, idHandle, idHandle);
+        assertTrue(hashTable.commit(r, val));
+        assertEquals(hashTable.get("GATTACA"), val);
+        assertEquals(hashTable.size(), 1);
+
+        assertEquals(hashTable.putIfAbsent("GATTACA").getStatus(),
+            Reservation.Status.DUPLICATE);
+
+        // a reservation made before the table changed is probed for again
+        Reservation first = hashTable.putIfAbsent("CAT");
+        Reservation second = hashTable.putIfAbsent("CAT");
+        assertTrue(hashTable.commit(first, new SequenceBundle(false,
+            mem.insertSeq("CAT", 32), idHandle)));
+        assertFalse(hashTable.commit(second, val));
+        assertEquals(hashTable.size(), 2);
+
+        Exception thrown = null;
+        try {
+            hashTable.commit(hashTable.putIfAbsent("CAT"), val);
+        }
+        catch (IllegalStateException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+
+    /**
+     * tests that compacting slides the sequences that are left over the
+     * removed ones and that they are found through their new handles
+     * @throws IOException
+     */
+    public void testCompact() throws IOException {
+        hashTable = new HashTable<String, SequenceBundle>(new PackedSlots(32),
+            mem, new MixHash());
+        for (int i = 0; i < 10; i++) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            assertTrue(hashTable.insert(key, new SequenceBundle(false,
+                mem.insertSeq(key, 32), mem.insertSeq("GATTACA", 32))));
+        }
+        for (int i = 0; i < 10; i += 2) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            SequenceBundle removed = hashTable.remove(key);
+            mem.freeSeq(removed.getIDHandle());
+            mem.freeSeq(removed.getSequenceHandle());
+        }
+        assertEquals(mem.firstFree(), 0);
+
+        assertEquals(hashTable.compact(2), 2);
+        assertEquals(mem.firstFree(), 3);
+        assertEquals(hashTable.compact(100), 8);
+        assertEquals(mem.firstFree(), -1);
+        assertEquals(hashTable.compact(100), 0);
+
+        for (int i = 1; i < 10; i += 2) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            Handle seq = hashTable.get(key).getSequenceHandle();
+            assertTrue(seq.getFileLocation() < 15);
+            assertEquals(ASCIIConverter.binToACGT(mem.getSeq(seq), 7),
+                "GATTACA");
+        }
+    }
+
+    /**
+     * tests that compacting a little at a time keeps up with entries that
+     * are inserted and removed in between, including empty sequences
+     * @throws IOException
+     */
+    public void testCompactBetweenChanges() throws IOException {
+        hashTable = new HashTable<String, SequenceBundle>(
+            new PackedSlots(256), mem, new MixHash());
+        String[] keys = new String[40];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertTrue(hashTable.insert(keys[i], mem.insertRecord(keys[i],
+                i % 5 == 0 ? "" : "GATTACA")));
+        }
+        for (int i = 0; i < 20; i++) {
+            if (i % 3 == 0) {
+                mem.removeRecord(hashTable.remove(keys[i]));
+            }
+            hashTable.compact(1);
+            assertTrue(hashTable.insert(keys[i + 20], mem.insertRecord(
+                keys[i + 20], i % 5 == 0 ? "" : "CAT")));
+            hashTable.compact(1);
+        }
+        while (mem.firstFree() != -1) {
+            assertTrue(hashTable.compact(10) > 0);
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            SequenceBundle found = hashTable.get(keys[i]);
+            assertEquals(found == null, i < 20 && i % 3 == 0);
+            if (found != null) {
+                String sequence = i % 5 == 0 ? "" : i < 20 ? "GATTACA"
+                    : "CAT";
+                Handle seq = found.getSequenceHandle();
+                assertEquals(ASCIIConverter.binToACGT(mem.getSeq(seq),
+                    seq.getSequenceLength()), sequence);
+            }
+        }
+        // the records freed after compacting are merged whole
+        for (int i = 21; i < keys.length; i += 3) {
+            mem.removeRecord(hashTable.remove(keys[i]));
+        }
+        while (mem.firstFree() != -1) {
+            assertTrue(hashTable.compact(10) > 0);
+        }
+    }
 }
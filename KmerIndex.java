@@ -0,0 +1,380 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * KmerIndex finds the sequences that contain a motif without decoding
+ * every sequence. It maps every k-mer, a run of k bases packed 2 bits to a
+ * base into a long, to the places it starts: the entry it is in and its
+ * offset there. A motif is looked up by its k-mer that starts the fewest
+ * places, and only the places it could start from those are read from the
+ * memory file and compared. Sequences are known by their sequence IDs, so
+ * the index keeps working when compaction moves them. The places of a k-mer
+ * are grouped by entry, so a removed sequence, which is read once more to
+ * find its k-mers, has its places dropped without looking through those of
+ * the other sequences. The index only holds the places of the sequences in
+ * the table.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class KmerIndex {
+
+    /**
+     * The length of the k-mers unless another is given
+     */
+    static final int DEFAULT_K = 8;
+
+    private int k;
+    private long mask;
+    private Map<Long, Postings> postings;
+    // the sequence ID of every entry, or null once it is removed
+    private List<String> ids;
+    private Map<String, Integer> entries;
+    // entries that were removed, handed out again before new ones
+    private Deque<Integer> unused;
+    private long size;
+
+    /**
+     * The places one k-mer starts, grouped by entry. An entry's group is
+     * put last when it is added, so the groups are in the order their
+     * sequences were added, and removing an entry drops its group whole.
+     */
+    static class Postings {
+        // the offsets of each entry, after the number of them
+        private LinkedHashMap<Integer, int[]> places =
+            new LinkedHashMap<Integer, int[]>();
+        private int size;
+
+        /**
+         * Adds a place.
+         * @param entry The entry
+         * @param offset The offset in its sequence
+         */
+        void add(int entry, int offset)
+        {
+            int[] offsets = places.get(entry);
+            if (offsets == null)
+            {
+                offsets = new int[2];
+                places.put(entry, offsets);
+            }
+            else if (offsets[0] + 1 == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                places.put(entry, offsets);
+            }
+            offsets[0]++;
+            offsets[offsets[0]] = offset;
+            size++;
+        }
+
+        /**
+         * Removes the places of an entry.
+         * @param entry The entry
+         * @return The number of places removed
+         */
+        int remove(int entry)
+        {
+            int[] offsets = places.remove(entry);
+            if (offsets == null)
+            {
+                return 0;
+            }
+            size -= offsets[0];
+            return offsets[0];
+        }
+    }
+
+    /**
+     * Creates an empty index.
+     * @param k The length of the k-mers, from 1 to 31
+     */
+    public KmerIndex(int k)
+    {
+        if (k < 1 || k > 31)
+        {
+            throw new IllegalArgumentException("k must be from 1 to 31");
+        }
+        this.k = k;
+        mask = (1L << (k * 2)) - 1;
+        postings = new HashMap<Long, Postings>();
+        ids = new ArrayList<String>();
+        entries = new HashMap<String, Integer>();
+        unused = new ArrayDeque<Integer>();
+    }
+
+    /**
+     * Gets the length of the k-mers.
+     * @return k
+     */
+    public int getK()
+    {
+        return k;
+    }
+
+    /**
+     * Gets the number of places held for all the k-mers.
+     * @return The number of places
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    /**
+     * Adds the k-mers of a sequence stored in the memory file, which is
+     * read a chunk at a time.
+     * @param id The sequence ID, which must not be in the index
+     * @param seqHandle The handle of the sequence
+     * @param memory The memory manager of the memory file
+     * @throws IOException
+     */
+    public void add(String id, Handle seqHandle, MemoryManager memory)
+        throws IOException
+    {
+        if (entries.containsKey(id))
+        {
+            throw new IllegalArgumentException(id + " is already indexed");
+        }
+        int entry;
+        if (unused.isEmpty())
+        {
+            entry = ids.size();
+            ids.add(id);
+        }
+        else
+        {
+            entry = unused.pop();
+            ids.set(entry, id);
+        }
+        entries.put(id, entry);
+        memory.writeSeq(seqHandle, new Adder(entry));
+    }
+
+    /**
+     * Removes a sequence from the index. Its k-mers are read from the
+     * memory file, so it must be removed before its record is freed.
+     * @param id The sequence ID
+     * @param seqHandle The handle of the sequence
+     * @param memory The memory manager of the memory file
+     * @throws IOException
+     */
+    public void remove(String id, Handle seqHandle, MemoryManager memory)
+        throws IOException
+    {
+        Integer entry = entries.remove(id);
+        if (entry == null)
+        {
+            return;
+        }
+        Remover remover = new Remover();
+        memory.writeSeq(seqHandle, remover);
+        for (long kmer : remover.kmers)
+        {
+            Postings p = postings.get(kmer);
+            if (p != null)
+            {
+                size -= p.remove(entry);
+                if (p.size == 0)
+                {
+                    postings.remove(kmer);
+                }
+            }
+        }
+        ids.set(entry, null);
+        unused.push(entry);
+    }
+
+    /**
+     * Finds the places a motif starts in the stored sequences.
+     * @param motif The motif, at least k bases long
+     * @param table The hash table the sequences are found in
+     * @param memory The memory manager of the memory file
+     * @return The offsets the motif starts at in each sequence that has
+     *         it, by sequence ID in the order the sequences were added
+     * @throws IOException
+     */
+    public Map<String, List<Integer>> find(String motif,
+        HashTable<String, SequenceBundle> table, MemoryManager memory)
+        throws IOException
+    {
+        if (motif.length() < k)
+        {
+            throw new IllegalArgumentException("the motif is shorter than k");
+        }
+        // the k-mer of the motif that starts the fewest places
+        Postings rarest = null;
+        int at = 0;
+        long kmer = 0;
+        for (int i = 0; i < motif.length(); i++)
+        {
+            kmer = ((kmer << 2) | code(motif.charAt(i))) & mask;
+            if (i >= k - 1)
+            {
+                Postings p = postings.get(kmer);
+                if (p == null)
+                {
+                    return new LinkedHashMap<String, List<Integer>>();
+                }
+                if (rarest == null || p.size < rarest.size)
+                {
+                    rarest = p;
+                    at = i - k + 1;
+                }
+            }
+        }
+
+        Map<String, List<Integer>> found =
+            new LinkedHashMap<String, List<Integer>>();
+        for (Map.Entry<Integer, int[]> group : rarest.places.entrySet())
+        {
+            String id = ids.get(group.getKey());
+            SequenceBundle entry = table.get(id);
+            if (entry == null)
+            {
+                continue;
+            }
+            int[] offsets = group.getValue();
+            for (int i = 1; i <= offsets[0]; i++)
+            {
+                int start = offsets[i] - at;
+                if (start >= 0 && motif.equals(memory.getSubsequence(
+                    entry.getSequenceHandle(), start, motif.length())))
+                {
+                    List<Integer> starts = found.get(id);
+                    if (starts == null)
+                    {
+                        starts = new ArrayList<Integer>();
+                        found.put(id, starts);
+                    }
+                    starts.add(start);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the 2 bit code of a base. Other characters are stored as As.
+     * @param c The base
+     * @return The code
+     */
+    private static int code(int c)
+    {
+        switch (c)
+        {
+            case 'C':
+                return 1;
+            case 'G':
+                return 2;
+            case 'T':
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Adder takes the characters of a sequence as they are written out of
+     * the memory file and adds every k-mer that ends at one.
+     */
+    private class Adder extends OutputStream {
+        private int entry;
+        private int offset;
+        private long kmer;
+
+        /**
+         * Creates an adder for an entry.
+         * @param entry The entry
+         */
+        Adder(int entry)
+        {
+            this.entry = entry;
+        }
+
+        /**
+         * Adds the k-mer that ends at a base.
+         * @param b The base
+         */
+        public void write(int b)
+        {
+            kmer = ((kmer << 2) | code(b)) & mask;
+            offset++;
+            if (offset >= k)
+            {
+                Postings p = postings.get(kmer);
+                if (p == null)
+                {
+                    p = new Postings();
+                    postings.put(kmer, p);
+                }
+                p.add(entry, offset - k);
+                size++;
+            }
+        }
+
+        /**
+         * Adds the k-mers that end at each of some bases.
+         * @param b The bases
+         * @param off The index of the first base
+         * @param len The number of bases
+         */
+        public void write(byte[] b, int off, int len)
+        {
+            for (int i = off; i < off + len; i++)
+            {
+                write(b[i]);
+            }
+        }
+    }
+
+    /**
+     * Remover takes the characters of a sequence as they are written out of
+     * the memory file and keeps each k-mer that ends at one, so the places
+     * of a k-mer that repeats are only looked through once.
+     */
+    private class Remover extends OutputStream {
+        private Set<Long> kmers = new HashSet<Long>();
+        private int offset;
+        private long kmer;
+
+        /**
+         * Keeps the k-mer that ends at a base.
+         * @param b The base
+         */
+        public void write(int b)
+        {
+            kmer = ((kmer << 2) | code(b)) & mask;
+            offset++;
+            if (offset >= k)
+            {
+                kmers.add(kmer);
+            }
+        }
+
+        /**
+         * Keeps the k-mers that end at each of some bases.
+         * @param b The bases
+         * @param off The index of the first base
+         * @param len The number of bases
+         */
+        public void write(byte[] b, int off, int len)
+        {
+            for (int i = off; i < off + len; i++)
+            {
+                write(b[i]);
+            }
+        }
+    }
+}
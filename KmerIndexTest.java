@@ -0,0 +1,151 @@
+import student.TestCase;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the methods of KmerIndex.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class KmerIndexTest extends TestCase {
+
+    private MemoryManager memory;
+    private HashTable<String, SequenceBundle> table;
+    private KmerIndex index;
+
+    /**
+     * Creates an empty table kept off the heap, and an index of 4-mers.
+     */
+    public void setUp()
+    {
+        memory = new MemoryManager(new DirectStorage(), new BestFit());
+        table = new HashTable<String, SequenceBundle>(
+            new ObjectSlots<SequenceBundle>(SequenceBundle.class, 64),
+            memory, new SFoldHash());
+        index = new KmerIndex(4);
+    }
+
+    /**
+     * Inserts a sequence into the table and the index.
+     * @param id The sequence ID
+     * @param sequence The sequence
+     * @throws IOException
+     */
+    private void insert(String id, String sequence) throws IOException
+    {
+        SequenceBundle entry = memory.insertRecord(id, sequence);
+        table.commit(table.putIfAbsent(id), entry);
+        index.add(id, entry.getSequenceHandle(), memory);
+    }
+
+    /**
+     * tests that a motif is found at every offset it starts at, and only
+     * there, when its k-mers also start elsewhere
+     * @throws IOException
+     */
+    public void testFind() throws IOException
+    {
+        insert("A", "GATTACAGATTACCGATTACA");
+        insert("C", "TTACAT");
+        insert("G", "GGGG");
+        Map<String, List<Integer>> found = index.find("GATTACA", table,
+            memory);
+        assertEquals(found.size(), 1);
+        assertEquals(found.get("A").toString(), "[0, 14]");
+
+        found = index.find("TTACA", table, memory);
+        assertEquals(found.keySet().toString(), "[A, C]");
+        assertEquals(found.get("C").toString(), "[0]");
+        assertTrue(index.find("GGGGG", table, memory).isEmpty());
+        assertTrue(index.find("TTACN", table, memory).isEmpty());
+    }
+
+    /**
+     * tests that a removed sequence is no longer found, and that one added
+     * again under its ID is found after the sequences added before it
+     * @throws IOException
+     */
+    public void testRemove() throws IOException
+    {
+        insert("A", "CCGGTT");
+        insert("C", "ACCGG");
+        insert("G", "GGCCGGCCGG");
+        SequenceBundle removed = table.remove("A");
+        index.remove("A", removed.getSequenceHandle(), memory);
+        memory.removeRecord(removed);
+        assertEquals(index.find("CCGG", table, memory).keySet().toString(),
+            "[C, G]");
+        insert("A", "TCCGG");
+        assertEquals(index.find("CCGG", table, memory).toString(),
+            "{C=[1], G=[2, 6], A=[1]}");
+    }
+
+    /**
+     * tests that the index only holds the places of the sequences still in
+     * the table after many inserts and removes
+     * @throws IOException
+     */
+    public void testChurn() throws IOException
+    {
+        insert("G", "ACGTACGTAC");
+        for (int i = 0; i < 500; i++)
+        {
+            String id = "T" + "ACGT".charAt(i % 4);
+            SequenceBundle removed = table.remove(id);
+            if (removed != null)
+            {
+                index.remove(id, removed.getSequenceHandle(), memory);
+                memory.removeRecord(removed);
+            }
+            insert(id, "AAAAAAAACCGGTTAC".substring(i % 8));
+        }
+        long places = 7;
+        for (int i = 496; i < 500; i++)
+        {
+            places += 13 - i % 8;
+        }
+        assertEquals(index.size(), places);
+        for (String id : new String[] {"G", "TA", "TC", "TG", "TT"})
+        {
+            SequenceBundle removed = table.remove(id);
+            index.remove(id, removed.getSequenceHandle(), memory);
+            memory.removeRecord(removed);
+        }
+        assertEquals(index.size(), 0);
+        assertTrue(index.find("AAAA", table, memory).isEmpty());
+        insert("C", "CCGGTT");
+        assertEquals(index.find("CCGG", table, memory).toString(),
+            "{C=[0]}");
+    }
+
+    /**
+     * tests that k must fit in a long, and motifs must be k bases long
+     * @throws IOException
+     */
+    public void testLimits() throws IOException
+    {
+        Exception thrown = null;
+        try
+        {
+            new KmerIndex(32);
+        }
+        catch (IllegalArgumentException e)
+        {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+        thrown = null;
+        try
+        {
+            index.find("ACG", table, memory);
+        }
+        catch (IllegalArgumentException e)
+        {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+}
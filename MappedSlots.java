@@ -0,0 +1,459 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * MappedSlots keeps the slots of a HashTable in a memory mapped hash file, so
+ * the table outlives the program and can be opened again without inserting
+ * anything. The file starts with a header giving the version of the layout,
+ * the capacity, the bucket size and the hash function, followed by a record
+ * per slot holding the same fields as a slot of PackedSlots. Version 2 of
+ * the layout widened the file locations of the Handles to 64 bits; a hash
+ * file of version 1 is not opened again. One mapping holds at most 2 GB, so
+ * the slots are mapped in segments of 2^25 slots, or 1 GB, each.
+ *
+ * A growing table is written to a second file next to the first, and the
+ * slots of the first are left as they are until every bucket has been moved
+ * and the second file takes its name. While it grows, the header of the
+ * first file gives the capacity of the second, and a byte per bucket after
+ * its slots marks the buckets that have been moved, so a table that was
+ * growing when the program stopped is opened with both files and finishes
+ * moving.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class MappedSlots implements SlotArray<SequenceBundle> {
+
+    /**
+     * The first four bytes of a hash file
+     */
+    static final int MAGIC = 0x444E4148;
+    /**
+     * The version of the layout of the hash file
+     */
+    static final int VERSION = 2;
+    /**
+     * The number of bytes before the first slot
+     */
+    static final int HEADER_BYTES = 32;
+    /**
+     * The number of bytes of a slot: the ID and sequence Handles as a
+     * location of 8 bytes and a length of 4, the fingerprint, the state byte
+     * and 3 bytes of padding
+     */
+    static final int SLOT_BYTES = 32;
+    // where the fields are within a slot
+    private static final int ID_LENGTH = 8;
+    private static final int SEQUENCE = 12;
+    private static final int SEQUENCE_LENGTH = 20;
+    private static final int FINGERPRINT = 24;
+    private static final int STATE = 28;
+    private static final int USED = 0x40;
+    private static final int TOMB_STONE = 0x80;
+    private static final int HOME = 0x3F;
+    private static final int SEGMENT_SHIFT = 25;
+    private static final int SEGMENT_SLOTS = 1 << SEGMENT_SHIFT;
+    // where the capacity of the table being grown into is in the header
+    private static final int GROWING = 20;
+    private File file;
+    private RandomAccessFile raf;
+    // the header, and the slots a segment at a time
+    private MappedByteBuffer buffer;
+    private MappedByteBuffer[] segments;
+    private int capacity;
+    private int hashId;
+    private MappedSlots next;
+    // a byte per bucket, set once the bucket is moved into next
+    private MappedByteBuffer movedBuckets;
+
+    /**
+     * Opens the hash file with the given name. If reopen is true, the file
+     * must already hold a table built with the same hash function, and its
+     * capacity is used. Otherwise a new table with the given capacity is
+     * written over the file.
+     * @param filename The name of the hash file
+     * @param capacity The number of slots of a new table
+     * @param hash The hash function of the HashTable
+     * @param reopen True to open the table already in the file
+     * @throws IOException
+     */
+    public MappedSlots(String filename, int capacity, HashFunction hash,
+        boolean reopen) throws IOException
+    {
+        this(new File(filename), capacity, hashId(hash), reopen);
+    }
+
+    /**
+     * Opens or creates a hash file.
+     * @param f The hash file
+     * @param cap The number of slots of a new table
+     * @param hash The id of the hash function
+     * @param reopen True to open the table already in the file
+     * @throws IOException
+     */
+    private MappedSlots(File f, int cap, int hash, boolean reopen)
+        throws IOException
+    {
+        file = f;
+        hashId = hash;
+        if (!reopen) {
+            // an old table is thrown away before the new one is mapped
+            f.delete();
+        }
+        raf = new RandomAccessFile(f, "rw");
+        if (reopen) {
+            if (raf.length() < HEADER_BYTES || raf.readInt() != MAGIC
+                || raf.readInt() != VERSION) {
+                raf.close();
+                throw new IOException(f + " is not a hash file");
+            }
+            capacity = raf.readInt();
+            if (raf.readInt() != HashTable.BUCKET_SIZE
+                || raf.readInt() != hashId) {
+                raf.close();
+                throw new IOException(f
+                    + " was built with another bucket size or hash function");
+            }
+            if (capacity < 1 || raf.length() < end()) {
+                raf.close();
+                throw new IOException(f + " is missing some of its slots");
+            }
+        }
+        else {
+            if (cap < 1) {
+                raf.close();
+                throw new IOException("a hash file needs at least one slot");
+            }
+            capacity = cap;
+            raf.setLength(HEADER_BYTES + (long)cap * SLOT_BYTES);
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(capacity);
+            raf.writeInt(HashTable.BUCKET_SIZE);
+            raf.writeInt(hashId);
+        }
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+            HEADER_BYTES);
+        segments = new MappedByteBuffer[(int)(((long)capacity
+            + SEGMENT_SLOTS - 1) / SEGMENT_SLOTS)];
+        for (int i = 0; i < segments.length; i++) {
+            long first = (long)i * SEGMENT_SLOTS;
+            segments[i] = raf.getChannel().map(
+                FileChannel.MapMode.READ_WRITE, HEADER_BYTES + first
+                    * SLOT_BYTES, Math.min(SEGMENT_SLOTS, capacity - first)
+                    * SLOT_BYTES);
+        }
+        if (reopen && buffer.getInt(GROWING) != 0) {
+            resumeGrowing(buffer.getInt(GROWING));
+        }
+    }
+
+    /**
+     * Opens the file a table was being grown into when it was last closed.
+     * If the file was not fully created, the growth is forgotten; the slots
+     * of this table are still whole.
+     * @param cap The capacity of the table being grown into
+     * @throws IOException
+     */
+    private void resumeGrowing(int cap) throws IOException
+    {
+        File f = new File(file.getPath() + ".grow");
+        if (raf.length() >= end() + buckets() && canReopen(f.getPath())) {
+            next = new MappedSlots(f, cap, hashId, true);
+            if (next.capacity == cap) {
+                movedBuckets = raf.getChannel().map(
+                    FileChannel.MapMode.READ_WRITE, end(), buckets());
+                return;
+            }
+            next.close();
+        }
+        next = null;
+        buffer.putInt(GROWING, 0);
+    }
+
+    /**
+     * Gets the number of bytes of the header and the slots.
+     * @return The position just past the last slot
+     */
+    private long end()
+    {
+        return HEADER_BYTES + (long)capacity * SLOT_BYTES;
+    }
+
+    /**
+     * Gets the number of buckets of this table.
+     * @return The number of buckets
+     */
+    private int buckets()
+    {
+        return (int)(((long)capacity + HashTable.BUCKET_SIZE - 1)
+            / HashTable.BUCKET_SIZE);
+    }
+
+    /**
+     * Determines if the file with the given name holds a hash table that can
+     * be opened again.
+     * @param filename The name of the file
+     * @return True if the file starts with a hash file header of this
+     * version; false otherwise
+     * @throws IOException
+     */
+    public static boolean canReopen(String filename) throws IOException
+    {
+        File f = new File(filename);
+        if (!f.isFile() || f.length() < HEADER_BYTES) {
+            return false;
+        }
+        RandomAccessFile in = new RandomAccessFile(f, "r");
+        try {
+            return in.readInt() == MAGIC && in.readInt() == VERSION;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Gets the id of a hash function that is kept in the header.
+     * @param hash The hash function
+     * @return The id of the hash function
+     */
+    private static int hashId(HashFunction hash)
+    {
+        return hash.getClass().getName().hashCode();
+    }
+
+    /**
+     * Gets the mapped segment that holds a slot.
+     * @param pos The slot
+     * @return The segment of the slot
+     */
+    private MappedByteBuffer segment(int pos)
+    {
+        return segments[pos >>> SEGMENT_SHIFT];
+    }
+
+    /**
+     * Gets the position of a slot in its segment.
+     * @param pos The slot
+     * @return The position of the first byte of the slot
+     */
+    private static int at(int pos)
+    {
+        return (pos & (SEGMENT_SLOTS - 1)) * SLOT_BYTES;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Creates a bigger table in a file next to this one and marks this one
+     * as growing into it. Once this table is discarded, the new file takes
+     * the name of this one.
+     * @param cap The number of slots
+     * @return The new slots
+     */
+    public SlotArray<SequenceBundle> newSlots(int cap)
+    {
+        try {
+            next = new MappedSlots(new File(file.getPath() + ".grow"), cap,
+                hashId, false);
+            // the header is marked last, so a growth that was cut off before
+            // the new file was whole is never resumed
+            raf.setLength(end() + buckets());
+            movedBuckets = raf.getChannel().map(
+                FileChannel.MapMode.READ_WRITE, end(), buckets());
+            for (int i = 0; i < buckets(); i++) {
+                movedBuckets.put(i, (byte)0);
+            }
+            buffer.putInt(GROWING, cap);
+            return next;
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SlotArray<SequenceBundle> growingInto()
+    {
+        return movedBuckets == null ? null : next;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMoved(int bucket)
+    {
+        movedBuckets.put(bucket, (byte)1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isMoved(int bucket)
+    {
+        return movedBuckets != null && movedBuckets.get(bucket) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty(int pos)
+    {
+        return (segment(pos).get(at(pos) + STATE) & USED) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isTombStone(int pos)
+    {
+        return (segment(pos).get(at(pos) + STATE) & TOMB_STONE) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getFingerprint(int pos)
+    {
+        return segment(pos).getInt(at(pos) + FINGERPRINT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getHome(int pos)
+    {
+        return segment(pos).get(at(pos) + STATE) & HOME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getIDLength(int pos)
+    {
+        return segment(pos).getInt(at(pos) + ID_LENGTH);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Handle getIDHandle(int pos)
+    {
+        MappedByteBuffer b = segment(pos);
+        int i = at(pos);
+        return new Handle(b.getLong(i), b.getInt(i + ID_LENGTH));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SequenceBundle get(int pos)
+    {
+        if (isEmpty(pos)) {
+            return null;
+        }
+        MappedByteBuffer b = segment(pos);
+        int i = at(pos);
+        return new SequenceBundle(isTombStone(pos), getIDHandle(pos),
+            new Handle(b.getLong(i + SEQUENCE),
+                b.getInt(i + SEQUENCE_LENGTH)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(int pos, SequenceBundle value, int fingerprint, int home)
+    {
+        MappedByteBuffer b = segment(pos);
+        int i = at(pos);
+        Handle id = value.getIDHandle();
+        Handle sequence = value.getSequenceHandle();
+        b.putLong(i, id.getFileLocation());
+        b.putInt(i + ID_LENGTH, id.getSequenceLength());
+        b.putLong(i + SEQUENCE, sequence.getFileLocation());
+        b.putInt(i + SEQUENCE_LENGTH, sequence.getSequenceLength());
+        b.putInt(i + FINGERPRINT, fingerprint);
+        b.put(i + STATE, (byte)(USED | home));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setTombStone(int pos)
+    {
+        MappedByteBuffer b = segment(pos);
+        int i = at(pos) + STATE;
+        b.put(i, (byte)(b.get(i) | TOMB_STONE));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clear(int pos)
+    {
+        segment(pos).put(at(pos) + STATE, (byte)0);
+    }
+
+    /**
+     * Gives the name of the file of this table to the bigger table that
+     * replaced it. The file is replaced in one step, so the name always
+     * holds a whole table.
+     * @throws IOException
+     */
+    public void discard() throws IOException
+    {
+        raf.close();
+        buffer = null;
+        segments = null;
+        movedBuckets = null;
+        if (next == null) {
+            file.delete();
+            return;
+        }
+        next.force();
+        Files.move(next.file.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        next.file = file;
+    }
+
+    /**
+     * Writes the header, the slots and the buckets moved so far out to the
+     * hash file.
+     */
+    public void force()
+    {
+        buffer.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        if (movedBuckets != null) {
+            movedBuckets.force();
+        }
+    }
+
+    /**
+     * Writes the slots out to the hash file and closes it.
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+        force();
+        raf.close();
+    }
+}
@@ -0,0 +1,246 @@
+import student.TestCase;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Tests the methods of MappedSlots.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class MappedSlotsTest extends TestCase {
+
+    private MappedSlots slots;
+
+    /**
+     * Creates a new hash file for testing.
+     * @throws IOException
+     */
+    public void setUp() throws IOException
+    {
+        slots = new MappedSlots("mapped_hash.bin", 64, new SFoldHash(),
+            false);
+    }
+
+    /**
+     * Deletes the hash file.
+     */
+    public void tearDown()
+    {
+        new File("mapped_hash.bin").delete();
+        new File("mapped_hash.bin.grow").delete();
+    }
+
+    /**
+     * tests that the slots are still there once the file is opened again
+     * @throws IOException
+     */
+    public void testReopen() throws IOException
+    {
+        assertEquals(slots.capacity(), 64);
+        SequenceBundle bundle = new SequenceBundle(false, new Handle(10, 3),
+            new Handle(11, 40));
+        slots.set(7, bundle, 99, 7);
+        slots.set(8, bundle, 98, 7);
+        slots.setTombStone(8);
+        slots.close();
+
+        assertTrue(MappedSlots.canReopen("mapped_hash.bin"));
+        slots = new MappedSlots("mapped_hash.bin", 32, new SFoldHash(), true);
+        assertEquals(slots.capacity(), 64);
+        assertTrue(slots.isEmpty(6));
+        assertFalse(slots.isEmpty(7));
+        assertEquals(slots.getFingerprint(7), 99);
+        assertEquals(slots.getHome(7), 7);
+        assertEquals(slots.get(7).getSequenceHandle().getSequenceLength(),
+            40);
+        assertTrue(slots.isTombStone(8));
+        slots.close();
+
+        // a table built with another hash function is not opened
+        Exception thrown = null;
+        try {
+            new MappedSlots("mapped_hash.bin", 64, new MixHash(), true);
+        }
+        catch (IOException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+
+    /**
+     * tests canReopen on files that are not hash files
+     * @throws IOException
+     */
+    public void testCanReopen() throws IOException
+    {
+        slots.close();
+        assertFalse(MappedSlots.canReopen("no_such_hash_file.bin"));
+        FileWriter writer = new FileWriter("mapped_hash.bin");
+        writer.write("this is not a hash file at all, not even close");
+        writer.close();
+        assertFalse(MappedSlots.canReopen("mapped_hash.bin"));
+    }
+
+    /**
+     * tests that a growing table takes over the name of the hash file
+     * @throws IOException
+     */
+    public void testGrow() throws IOException
+    {
+        slots.close();
+        slots = new MappedSlots("mapped_hash.bin", 64, new MixHash(), false);
+        MemoryManager mem = new MemoryManager("mapped_mem.bin", 64);
+        HashTable<String, SequenceBundle> table =
+            new HashTable<String, SequenceBundle>(slots, mem, new MixHash());
+        table.setGrowable(0.5);
+        for (int i = 0; i < 40; i++) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            Handle idHandle = mem.insertSeq(key, 64);
+            assertTrue(table.insert(key, new SequenceBundle(false, idHandle,
+                idHandle)));
+        }
+        table.close();
+        assertEquals(table.capacity(), 128);
+        assertFalse(new File("mapped_hash.bin.grow").exists());
+
+        slots = new MappedSlots("mapped_hash.bin", 64, new MixHash(), true);
+        table = new HashTable<String, SequenceBundle>(slots, mem,
+            new MixHash());
+        assertEquals(table.capacity(), 128);
+        assertEquals(table.size(), 40);
+        assertNotNull(table.get("AAGG"));
+        table.close();
+        mem.close();
+        new File("mapped_mem.bin").delete();
+    }
+
+    /**
+     * tests that a table that stopped partway through growing, without
+     * being closed, is opened with every entry and finishes growing, even
+     * when it stopped in the middle of moving a bucket
+     * @throws IOException
+     */
+    public void testGrowthCutOff() throws IOException
+    {
+        slots.close();
+        slots = new MappedSlots("mapped_hash.bin", 256, new MixHash(), false);
+        MemoryManager mem = new MemoryManager("mapped_mem.bin", 64);
+        HashTable<String, SequenceBundle> table =
+            new HashTable<String, SequenceBundle>(slots, mem, new MixHash());
+        table.setGrowable(0.1);
+        int count = 0;
+        while (table.capacity() == 256) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)count},
+                4);
+            Handle idHandle = mem.insertSeq(key, 64);
+            assertTrue(table.insert(key, new SequenceBundle(false, idHandle,
+                idHandle)));
+            count++;
+        }
+        assertTrue(new File("mapped_hash.bin.grow").exists());
+
+        // the table is left without being closed, and a bucket that was not
+        // moved has one of its entries copied over as if it had been cut off
+        slots = new MappedSlots("mapped_hash.bin", 64, new MixHash(), true);
+        assertEquals(slots.capacity(), 256);
+        SlotArray<SequenceBundle> bigger = slots.growingInto();
+        assertEquals(bigger.capacity(), 512);
+        int bucket = 0;
+        while (slots.isMoved(bucket)) {
+            bucket++;
+        }
+        int pos = bucket * HashTable.BUCKET_SIZE;
+        while (slots.isEmpty(pos)) {
+            pos++;
+        }
+        bigger.set(pos, slots.get(pos), slots.getFingerprint(pos),
+            slots.getHome(pos));
+
+        table = new HashTable<String, SequenceBundle>(slots, mem,
+            new MixHash());
+        assertEquals(table.capacity(), 512);
+        assertEquals(table.size(), count);
+        for (int i = 0; i < count; i++) {
+            String key = ASCIIConverter.binToACGT(new byte[] {(byte)i}, 4);
+            assertNotNull(table.get(key));
+        }
+        assertEquals(table.entries().size(), count);
+        table.close();
+        assertFalse(new File("mapped_hash.bin.grow").exists());
+
+        slots = new MappedSlots("mapped_hash.bin", 64, new MixHash(), true);
+        assertNull(slots.growingInto());
+        table = new HashTable<String, SequenceBundle>(slots, mem,
+            new MixHash());
+        assertEquals(table.capacity(), 512);
+        assertEquals(table.size(), count);
+        table.close();
+        mem.close();
+        new File("mapped_mem.bin").delete();
+    }
+
+    /**
+     * tests that a table bigger than one mapping, whose slots run past 2 GB
+     * into the file, keeps the slots of every segment apart
+     * @throws IOException
+     */
+    public void testPastTwoGigabytes() throws IOException
+    {
+        slots.close();
+        int cap = (1 << 26) + 64;
+        slots = new MappedSlots("mapped_hash.bin", cap, new SFoldHash(),
+            false);
+        SequenceBundle bundle = new SequenceBundle(false, new Handle(10, 3),
+            new Handle(11, 40));
+        slots.set(3, bundle, 1, 3);
+        slots.set(cap - 1, bundle, 2, 31);
+        slots.set((1 << 25) + 3, bundle, 3, 3);
+        assertTrue(slots.isEmpty(cap - 2));
+        slots.close();
+
+        slots = new MappedSlots("mapped_hash.bin", 64, new SFoldHash(), true);
+        assertEquals(slots.capacity(), cap);
+        assertEquals(slots.getFingerprint(3), 1);
+        assertEquals(slots.getFingerprint(cap - 1), 2);
+        assertEquals(slots.getHome(cap - 1), 31);
+        assertEquals(slots.getFingerprint((1 << 25) + 3), 3);
+        assertEquals(slots.get(cap - 1).getSequenceHandle()
+            .getSequenceLength(), 40);
+        assertTrue(slots.isEmpty(1 << 26));
+        slots.close();
+    }
+
+    /**
+     * tests that file locations past 4 GB are written out whole, and that a
+     * hash file of another version is not opened again
+     * @throws IOException
+     */
+    public void testWideLocations() throws IOException
+    {
+        long far = 3L << 40;
+        slots.set(3, new SequenceBundle(false, new Handle(far, 5),
+            new Handle(far + 2, 1 << 30)), -1, 3);
+        slots.close();
+
+        slots = new MappedSlots("mapped_hash.bin", 64, new SFoldHash(), true);
+        assertEquals(slots.getIDHandle(3).getFileLocation(), far);
+        assertEquals(slots.getIDLength(3), 5);
+        assertEquals(slots.get(3).getSequenceHandle().getFileLocation(),
+            far + 2);
+        assertEquals(slots.get(3).getSequenceHandle().getSequenceLength(),
+            1 << 30);
+        assertEquals(slots.getFingerprint(3), -1);
+        slots.close();
+
+        // the version is the second int of the header
+        RandomAccessFile raf = new RandomAccessFile("mapped_hash.bin", "rw");
+        raf.seek(4);
+        raf.writeInt(1);
+        raf.close();
+        assertFalse(MappedSlots.canReopen("mapped_hash.bin"));
+    }
+}
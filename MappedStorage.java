@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * MappedStorage maps the memory file into memory in chunks and serves reads
+ * and writes from the mapped buffers, so an access costs no system call. A
+ * chunk is mapped when the file first grows into it. Mapping a chunk makes
+ * the file on disk as long as the chunk, so the length of the memory file is
+ * kept here and the file is cut back to it when the storage is closed.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class MappedStorage extends ChunkedStorage {
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+
+    /**
+     * Opens and maps the given file in chunks of DEFAULT_CHUNK_SIZE.
+     * @param filename The name of the file
+     * @param reopen True to keep what is in the file; false to empty it
+     * @throws IOException
+     */
+    public MappedStorage(String filename, boolean reopen) throws IOException
+    {
+        this(filename, reopen, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Opens and maps the given file.
+     * @param filename The name of the file
+     * @param reopen True to keep what is in the file; false to empty it
+     * @param chunkSize The number of bytes mapped at a time
+     * @throws IOException
+     */
+    public MappedStorage(String filename, boolean reopen, int chunkSize)
+        throws IOException
+    {
+        super(chunkSize);
+        file = new RandomAccessFile(filename, "rw");
+        if (!reopen)
+        {
+            file.setLength(0);
+        }
+        channel = file.getChannel();
+        open(file.length());
+    }
+
+    /**
+     * Maps the next chunk of the file.
+     * @param index The number of the chunk
+     * @return The mapped chunk
+     * @throws IOException
+     */
+    protected ByteBuffer newChunk(int index) throws IOException
+    {
+        return channel.map(FileChannel.MapMode.READ_WRITE,
+            (long)index * getChunkSize(), getChunkSize());
+    }
+
+    /**
+     * Writes the mapped chunks out to disk.
+     */
+    public synchronized void force()
+    {
+        for (ByteBuffer chunk : chunks())
+        {
+            ((MappedByteBuffer)chunk).force();
+        }
+    }
+
+    /**
+     * Writes the mapped chunks out, cuts the file back to its length and
+     * closes it.
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException
+    {
+        force();
+        file.setLength(length());
+        file.close();
+    }
+}
@@ -0,0 +1,83 @@
+import student.TestCase;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests the methods of MappedStorage. The reads and writes every Storage
+ * has to get right are tested in StorageTest.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class MappedStorageTest extends TestCase {
+
+    private MappedStorage storage;
+
+    /**
+     * Creates a memory file mapped in chunks of 16 bytes.
+     * @throws IOException
+     */
+    public void setUp() throws IOException
+    {
+        storage = new MappedStorage("mapped_mem.bin", false, 16);
+    }
+
+    /**
+     * Deletes the memory file.
+     */
+    public void tearDown()
+    {
+        new File("mapped_mem.bin").delete();
+    }
+
+    /**
+     * tests that a chunk is mapped when the file grows into it, which makes
+     * the file on disk a whole number of chunks long until it is closed
+     * @throws IOException
+     */
+    public void testGrowth() throws IOException
+    {
+        assertEquals(storage.chunks().length, 0);
+        storage.write(StorageTest.bytes(1, 10), 0);
+        assertEquals(storage.chunks().length, 1);
+        assertEquals(new File("mapped_mem.bin").length(), 16);
+        storage.write(StorageTest.bytes(11, 30), 10);
+        assertEquals(storage.chunks().length, 3);
+        assertEquals(new File("mapped_mem.bin").length(), 48);
+
+        // cutting the file off keeps its chunks mapped
+        storage.setLength(20);
+        assertEquals(storage.chunks().length, 3);
+        storage.close();
+        assertEquals(new File("mapped_mem.bin").length(), 20);
+    }
+
+    /**
+     * tests that a file that is opened again is mapped with what it held
+     * @throws IOException
+     */
+    public void testRemap() throws IOException
+    {
+        storage.write(StorageTest.bytes(1, 30), 0);
+        storage.setLength(25);
+        storage.close();
+
+        storage = new MappedStorage("mapped_mem.bin", true, 16);
+        assertEquals(storage.length(), 25);
+        assertEquals(storage.chunks().length, 2);
+        byte[] read = new byte[10];
+        storage.read(read, 18);
+        assertTrue(Arrays.equals(read, new byte[] {19, 20, 21, 22, 23, 24,
+            25, 0, 0, 0}));
+
+        // growing again maps the next chunk after the ones already there
+        storage.write(StorageTest.bytes(40, 10), 30);
+        assertEquals(storage.chunks().length, 3);
+        storage.read(read, 0);
+        assertTrue(Arrays.equals(read, StorageTest.bytes(1, 10)));
+        storage.close();
+        assertEquals(new File("mapped_mem.bin").length(), 40);
+    }
+}
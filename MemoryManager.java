@@ -1,11 +1,16 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 // -------------------------------------------------------------------------
 /**
  *  MemoryManager is the main class of this file. It manages the memory file
  *  by writing to it.  Most of its functions end up being called by the
- *  DNAdbase class.
+ *  DNAdbase class.  Its methods that change the file are synchronized, so
+ *  that the threads of a ConcurrentHashTable can share one memory file;
+ *  sequences are read without a lock.
  *
  *  @author Hannah Nguyen <hanguyen>
  *  @author Ryan Maxey <ryanmaxey6>
@@ -14,13 +19,29 @@ import java.util.*;
 public class MemoryManager
 {
     //~ Fields ................................................................
-    private RandomAccessFile memory;
-    private LinkedList<Pair> list;
+    // the most bytes a scrub overwrites with one write
+    private static final int SCRUB_BYTES = 1 << 16;
+    // the most packed bytes writeSeq reads at a time
+    private static final int STREAM_BYTES = 1 << 14;
+    private Storage memory;
+    private FreeBlockList list;
+    // counts kept for printStats()
+    private long allocations;
+    private long reused;
+    private long frees;
+    // blocks freed since the last scrub, kept only while scrubbing
+    private List<Pair> unscrubbed;
+    private volatile Thread scrubber;
+    private CountDownLatch scrubberStop;
+    private volatile IOException scrubError;
+    // blocks freed since the last checkpoint of a WriteAheadLog, kept only
+    // while frees are held
+    private List<Pair> held;
 
     //~ Constructors ..........................................................
     /**
      * The constructor sets up an instance of the MemoryManager by setting up
-     * the memory file and doubly linked list of free blocks.
+     * the memory file and the list of free blocks.
      *
      * @param filename : The name of the file used by the memory manager to
      * store strings
@@ -29,9 +50,56 @@ public class MemoryManager
      */
     public MemoryManager(String filename, int size) throws IOException
     {
-        memory = new RandomAccessFile(filename, "rw");
-        new FileWriter(filename, false).close();
-        list = new LinkedList<Pair>();
+        this(filename, size, false);
+    }
+
+    /**
+     * This constructor can also open a memory file that is already there
+     * instead of starting from an empty one.  The free block list of a file
+     * that is opened again is built with rebuildFreeList().
+     *
+     * @param filename : The name of the file used by the memory manager to
+     * store strings
+     * @param size : size is the size of the static hash table
+     * @param reopen : True to keep the contents of the memory file
+     * @throws IOException
+     */
+    public MemoryManager(String filename, int size, boolean reopen)
+        throws IOException
+    {
+        this(filename, size, reopen, new BestFit());
+    }
+
+    /**
+     * This constructor also takes the policy that picks the free block a
+     * sequence is stored in, such as FirstFit or SegregatedFit.  The other
+     * constructors use BestFit.
+     *
+     * @param filename : The name of the file used by the memory manager to
+     * store strings
+     * @param size : size is the size of the static hash table
+     * @param reopen : True to keep the contents of the memory file
+     * @param policy : The allocation policy
+     * @throws IOException
+     */
+    public MemoryManager(String filename, int size, boolean reopen,
+        AllocationPolicy policy) throws IOException
+    {
+        this(new FileStorage(filename, reopen), policy);
+    }
+
+    /**
+     * This constructor keeps the memory file in the given storage, such as
+     * a MappedStorage, which serves reads and writes from memory, or a
+     * DirectStorage, which does without a file.
+     *
+     * @param storage : The storage of the memory file
+     * @param policy : The allocation policy
+     */
+    public MemoryManager(Storage storage, AllocationPolicy policy)
+    {
+        memory = storage;
+        list = new FreeBlockList(policy);
     }
 
     //~Public  Methods ........................................................
@@ -43,37 +111,140 @@ public class MemoryManager
      * @throws IOException
      */
     public byte[] getSeq(Handle seqHandle) throws IOException {
-        // The function will jump to the beginning of a sequence and read in
-        // the sequence bytes.
-        memory.seek(seqHandle.getFileLocation());
+        // The sequence bytes are read at the beginning of the sequence
+        // without moving the file pointer, so readers do not have to take
+        // turns with each other or with writers.
         int numBytes = byteNeeded(seqHandle.getSequenceLength());
         byte[] result = new byte[numBytes];
 
-        memory.read(result);
+        memory.read(result, seqHandle.getFileLocation());
 
         return result;
     }
 
+    /**
+     * The function to return part of a sequence as characters.  Only the
+     * bytes that hold the bases of the part are read and decoded.  A part
+     * that runs past the end of the sequence is cut off there.
+     * @param seqHandle : The handle of the sequence
+     * @param start : The index of the first base of the part
+     * @param length : The number of bases in the part
+     * @return The bases of the part, or null if start is not in the
+     *         sequence or length is negative
+     * @throws IOException
+     */
+    public String getSubsequence(Handle seqHandle, int start, int length)
+        throws IOException {
+        int seqLength = seqHandle.getSequenceLength();
+        if (start < 0 || start >= seqLength || length < 0) {
+            return null;
+        }
+        int bases = Math.min(length, seqLength - start);
+        // The first byte read may hold up to three bases before the part,
+        // which are decoded along with it and left out of the result.
+        int skipped = start % 4;
+        byte[] packed = new byte[byteNeeded(skipped + bases)];
+        memory.read(packed, seqHandle.getFileLocation() + start / 4);
+        byte[] ascii = new byte[skipped + bases];
+        ASCIIConverter.decode(packed, 0, ascii.length, ascii, 0);
+        return new String(ascii, skipped, bases, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes a sequence to a stream as characters, reading and decoding
+     * STREAM_BYTES of the memory file at a time, so a long sequence is
+     * never held whole and its first characters go out before the rest
+     * are read.
+     * @param seqHandle : The handle of the sequence
+     * @param out : The stream to write the characters to
+     * @throws IOException
+     */
+    public void writeSeq(Handle seqHandle, OutputStream out)
+        throws IOException {
+        int left = seqHandle.getSequenceLength();
+        long loc = seqHandle.getFileLocation();
+        byte[] packed = new byte[Math.min(byteNeeded(left), STREAM_BYTES)];
+        byte[] ascii = new byte[packed.length * 4];
+        while (left > 0) {
+            int bases = Math.min(left, ascii.length);
+            int numBytes = byteNeeded(bases);
+            byte[] read = numBytes == packed.length ? packed
+                : new byte[numBytes];
+            memory.read(read, loc);
+            ASCIIConverter.decode(read, 0, bases, ascii, 0);
+            out.write(ascii, 0, bases);
+            loc += numBytes;
+            left -= bases;
+        }
+    }
+
+    /**
+     * Writes a sequence to a stream as characters, starting with bytes of
+     * it that were already read, such as by readRecord(), and reading the
+     * rest like writeSeq() does.
+     * @param seqHandle : The handle of the sequence
+     * @param head : Bytes read from the memory file that end with the
+     *               first bytes of the sequence
+     * @param from : The index in head of the first byte of the sequence
+     * @param out : The stream to write the characters to
+     * @throws IOException
+     */
+    public void writeSeq(Handle seqHandle, byte[] head, int from,
+        OutputStream out) throws IOException {
+        int length = seqHandle.getSequenceLength();
+        int bases = (int)Math.min(length, (head.length - from) * 4L);
+        byte[] ascii = new byte[bases];
+        ASCIIConverter.decode(head, from, bases, ascii, 0);
+        out.write(ascii);
+        if (bases < length) {
+            writeSeq(new Handle(seqHandle.getFileLocation() + bases / 4,
+                length - bases), out);
+        }
+    }
+
+    /**
+     * Reads the sequence ID of an entry along with the start of its
+     * sequence, when the sequence is stored right after the ID, so finding
+     * an entry and writing out a short sequence take one read.  At most
+     * STREAM_BYTES of the sequence are read.
+     * @param entry : The bundle with the handles of the ID and the sequence
+     * @return The bytes of the ID, followed by the first bytes of the
+     *         sequence if it comes right after the ID
+     * @throws IOException
+     */
+    public byte[] readRecord(SequenceBundle entry) throws IOException {
+        Handle id = entry.getIDHandle();
+        Handle seq = entry.getSequenceHandle();
+        int idBytes = byteNeeded(id.getSequenceLength());
+        int seqBytes = 0;
+        if (seq.getFileLocation() == id.getFileLocation() + idBytes) {
+            seqBytes = Math.min(byteNeeded(seq.getSequenceLength()),
+                STREAM_BYTES);
+        }
+        byte[] record = new byte[idBytes + seqBytes];
+        memory.read(record, id.getFileLocation());
+        return record;
+    }
+
     /**
      * This is a helper method to the helper methods insertSeq and removeSeq.
-     * The function essentially seeks a specified location in the
-     * RandomAccessFile and then appends or overwrites to the file.
+     * The function essentially writes to a specified location in the
+     * memory file's storage, either appending or overwriting.
      *
      * @param sequence : The sequence (as a string) to be inserted into the
      * file
-     * @param loc : This integer should be the file location of the
+     * @param loc : This should be the file location of the
      *              corresponding sequence parameter
      * @return loc + sequence : This is the current file location after writing
-     *                          to the RandomAccessFile
+     *                          to the storage
      */
-    public int insertString(String sequence, int loc)
+    public synchronized long insertString(String sequence, long loc)
         throws IOException {
 
-        memory.seek(loc);
-        // RandomAccessFile will replace bytes instead of appending or
+        // The storage will replace bytes instead of appending or
         // inserting when it's written to.
         byte[] seq = ASCIIConverter.acgtToBin(sequence);
-        memory.write(seq);
+        memory.write(seq, loc);
 
         return loc;
     }
@@ -81,13 +252,13 @@ public class MemoryManager
     /**
      * This helps the insert() function in DNAdbase.  It takes a string, either
      * the sequence or sequence ID, inserts it into the memory file and updates
-     * the doubly linked list.
+     * the free block list.
      *
      * @param str : The string to be inserted can be the sequence or sequenceID
      * @param size : The total length of the HashTable that's set from DNAdbase
      * @return ret : ret is a Handle object with the file location and length
      */
-    public Handle insertSeq(String str, int size)
+    public synchronized Handle insertSeq(String str, int size)
         throws IOException
     {
         /**
@@ -100,152 +271,640 @@ public class MemoryManager
          * 5. Return information about the inserted sequence and sequenceID
          */
 
-        int memLoc = 0;
-        if (list.isEmpty())
-        {
+        long memLoc = 0;
+        int bytes = byteNeeded(str.length());
+
+        // The free block list hands out the front of the smallest free block
+        // that the sequence fits in, and drops the block once it is filled.
+        long bestFit = list.allocate(bytes);
+        allocations++;
+        if (bestFit != -1) {
+            reused++;
+            memLoc = insertString(str, bestFit);
+        }
+        else {
             // The sequence is added to the end of the file in this case,
-            // because there are no free blocks available in the linked list.
-            memLoc = insertString(str, (int)memory.length());
+            // because no free block is big enough.
+            memLoc = insertString(str, memory.length());
+        }
+
+        return new Handle(memLoc, str.length());
+    }
+
+    /**
+     * This stores a sequence ID and its sequence as one record, the ID
+     * followed right away by the sequence, so an entry takes a single
+     * allocation and a single write.  The two handles of the bundle point
+     * into the record.
+     *
+     * @param id : The sequence ID
+     * @param sequence : The sequence
+     * @return The bundle with the handles of the ID and the sequence
+     * @throws IOException
+     */
+    public synchronized SequenceBundle insertRecord(String id,
+        String sequence) throws IOException
+    {
+        byte[] idBytes = ASCIIConverter.acgtToBin(id);
+        byte[] seqBytes = ASCIIConverter.acgtToBin(sequence);
+        byte[] record = Arrays.copyOf(idBytes, idBytes.length
+            + seqBytes.length);
+        System.arraycopy(seqBytes, 0, record, idBytes.length,
+            seqBytes.length);
+
+        long loc = list.allocate(record.length);
+        allocations++;
+        if (loc != -1) {
+            reused++;
         }
         else {
-            Pair bestFit = null;
-            int bytes = byteNeeded(str.length());
-
-            // The method searches for a free block that best fits the sequence
-            // to be inserted.
-            for (Pair block : list) {
-                if (block.getLength() >= bytes && (bestFit == null ||
-                    block.getLength() < bestFit.getLength())) {
-                    bestFit = block;
-                    if (block.getLength() == bytes) {
-                        break;
-                    }
-                }
-            }
+            loc = memory.length();
+        }
+        memory.write(record, loc);
 
-            // The following if statement is executed if a best fit block has
-            // been found; otherwise, the sequence is appended to the end of
-            // the memory file.
-            if (bestFit != null) {
-                // The best fit free block is then updated.
-                memLoc = insertString(str, bestFit.getFileOffset());
+        return new SequenceBundle(false, new Handle(loc, id.length()),
+            new Handle(loc + idBytes.length, sequence.length()));
+    }
 
-                bestFit.setFileOffset(bestFit.getFileOffset() + bytes);
-                bestFit.setLength(bestFit.getLength() - bytes);
+    /**
+     * This inserts a sequence read from a stream of characters, packing and
+     * writing STREAM_BYTES at a time, so a sequence too long to be held as
+     * a string can be inserted.  Room for the expected length is taken up
+     * front; what is left of it is handed back if the sequence is shorter,
+     * and the sequence is moved to the end of the file if it is longer.
+     *
+     * @param in : The characters of the sequence, up to the end of stream
+     * @param length : The expected length of the sequence
+     * @return A handle with the file location and the length read
+     * @throws IOException
+     * @throws IllegalArgumentException if length is negative or the
+     *         sequence is longer than Integer.MAX_VALUE bases, in which case
+     *         nothing is stored
+     */
+    public synchronized Handle insertSeq(Reader in, int length)
+        throws IOException
+    {
+        return stream(new byte[0], in, length);
+    }
+
+    /**
+     * This stores a sequence ID and a sequence read from a stream of
+     * characters as one record, like insertRecord(id, sequence), packing
+     * and writing the sequence as insertSeq(in, length) does.
+     *
+     * @param id : The sequence ID
+     * @param in : The characters of the sequence, up to the end of stream
+     * @param length : The expected length of the sequence
+     * @return The bundle with the handles of the ID and the sequence
+     * @throws IOException
+     * @throws IllegalArgumentException as insertSeq(in, length) does
+     */
+    public synchronized SequenceBundle insertRecord(String id, Reader in,
+        int length) throws IOException
+    {
+        byte[] idBytes = ASCIIConverter.acgtToBin(id);
+        Handle record = stream(idBytes, in, length);
+        return new SequenceBundle(false,
+            new Handle(record.getFileLocation(), id.length()),
+            new Handle(record.getFileLocation() + idBytes.length,
+                record.getSequenceLength()));
+    }
+
+    /**
+     * This writes packed bytes followed by a sequence read from a stream of
+     * characters into one allocation.
+     *
+     * @param head : The packed bytes that come first
+     * @param in : The characters of the sequence, up to the end of stream
+     * @param length : The expected length of the sequence
+     * @return A handle with the file location of head and the length of
+     *         the sequence
+     * @throws IOException
+     */
+    private Handle stream(byte[] head, Reader in, int length)
+        throws IOException
+    {
+        if (length < 0) {
+            throw new IllegalArgumentException(
+                "a sequence length cannot be negative");
+        }
+        long reserved = head.length + (long)byteNeeded(length);
+        long loc = list.allocate(reserved);
+        allocations++;
+        boolean atEnd = loc == -1;
+        if (atEnd) {
+            loc = memory.length();
+        }
+        else {
+            reused++;
+        }
+
+        char[] chars = new char[STREAM_BYTES * 4];
+        byte[] packed = Arrays.copyOf(head, head.length + STREAM_BYTES);
+        int start = head.length;
+        long written = 0;
+        long bases = 0;
+        int count;
+        do {
+            count = fill(in, chars);
+            if (bases + count > Integer.MAX_VALUE) {
+                // A handle cannot hold the length, so what is written so
+                // far is freed.
+                free(loc, atEnd ? written : reserved);
+                throw new IllegalArgumentException("a sequence cannot be "
+                    + "longer than " + Integer.MAX_VALUE + " bases");
             }
-            else {
-                memLoc = insertString(str, (int)memory.length());
+            int numBytes = start + byteNeeded(count);
+            if (!atEnd && written + numBytes > reserved) {
+                // The sequence is longer than expected, so what is written
+                // so far is moved to the end of the file, where it can
+                // keep growing.
+                long moved = memory.length();
+                copy(loc, moved, written);
+                allocations++;
+                free(loc, reserved);
+                loc = moved;
+                atEnd = true;
             }
+            ASCIIConverter.encode(chars, 0, count, packed, start);
+            if (numBytes > 0) {
+                memory.write(numBytes == packed.length ? packed
+                    : Arrays.copyOf(packed, numBytes), loc + written);
+            }
+            written += numBytes;
+            bases += count;
+            start = 0;
+        } while (count == chars.length);
+
+        if (!atEnd && written < reserved) {
+            // The sequence is shorter than expected.
+            list.free(loc + written, reserved - written);
         }
+        return new Handle(loc, (int)bases);
+    }
 
-        // The free block linked list is updated to remove any filled
-        // blocks.
-        for (Pair block : list) {
-            if (block.getLength() <= 0) {
-                list.remove(block);
+    /**
+     * Reads characters from a stream until an array is full or the stream
+     * ends.
+     *
+     * @param in : The stream
+     * @param chars : The array to fill
+     * @return The number of characters read
+     * @throws IOException
+     */
+    private static int fill(Reader in, char[] chars) throws IOException {
+        int count = 0;
+        while (count < chars.length) {
+            int read = in.read(chars, count, chars.length - count);
+            if (read < 0) {
                 break;
             }
+            count += read;
         }
+        return count;
+    }
 
-        return new Handle(memLoc, str.length());
+    /**
+     * Copies bytes of the memory file to another location, STREAM_BYTES
+     * at a time.  The two ranges must not overlap.
+     *
+     * @param from : The location of the bytes
+     * @param to : The location to copy them to
+     * @param numBytes : The number of bytes
+     * @throws IOException
+     */
+    private void copy(long from, long to, long numBytes) throws IOException {
+        for (long done = 0; done < numBytes; done += STREAM_BYTES) {
+            byte[] piece = new byte[(int)Math.min(numBytes - done,
+                STREAM_BYTES)];
+            memory.read(piece, from + done);
+            memory.write(piece, to + done);
+        }
+    }
+
+    /**
+     * This removes an entry from the memory file.  If its sequence comes
+     * right after its ID, as it does in a record stored by insertRecord(),
+     * the two are freed as one block; otherwise they are freed one at a
+     * time.
+     *
+     * @param entry : The bundle with the handles of the ID and the sequence
+     * @return The bytes of the sequence (before removal)
+     * @throws IOException
+     */
+    public synchronized byte[] removeRecord(SequenceBundle entry)
+        throws IOException
+    {
+        byte[] result = getSeq(entry.getSequenceHandle());
+        freeRecord(entry);
+        return result;
+    }
+
+    /**
+     * This removes an entry from the memory file like removeRecord(entry),
+     * but writes its sequence to a stream with writeSeq() before freeing
+     * it instead of reading it in whole.
+     *
+     * @param entry : The bundle with the handles of the ID and the sequence
+     * @param out : The stream to write the characters of the sequence to
+     * @throws IOException
+     */
+    public synchronized void removeRecord(SequenceBundle entry,
+        OutputStream out) throws IOException
+    {
+        writeSeq(entry.getSequenceHandle(), out);
+        freeRecord(entry);
+    }
+
+    /**
+     * This frees the ID and sequence of an entry, as one block if the
+     * sequence comes right after the ID. Use it like freeSeq() when the
+     * bytes are not needed.
+     *
+     * @param entry : The bundle with the handles of the ID and the sequence
+     * @throws IOException
+     */
+    public synchronized void freeRecord(SequenceBundle entry)
+        throws IOException
+    {
+        Handle id = entry.getIDHandle();
+        Handle seq = entry.getSequenceHandle();
+        int idBytes = byteNeeded(id.getSequenceLength());
+        if (seq.getFileLocation() != id.getFileLocation() + idBytes) {
+            freeSeq(id);
+            freeSeq(seq);
+            return;
+        }
+        free(id.getFileLocation(),
+            idBytes + byteNeeded(seq.getSequenceLength()));
     }
 
     /**
      * The removeSeq function is a helper method for the remove function in the
-     * DNAdbase class.
+     * DNAdbase class.  The bytes of the sequence are read before it is freed
+     * and are left in the file, unless a scrubber is running; use freeSeq()
+     * when the bytes are not needed.
      *
      * @param seqHandle : The sole parameter is a handle object with the ID and
      *                    length of the sequence to be removed
      * @return result : The returned result is a byte array that's read in from
      *                  the memory file (before removal)
      */
-    public byte[] removeSeq(Handle seqHandle) throws IOException
+    public synchronized byte[] removeSeq(Handle seqHandle)
+        throws IOException
     {
         /**
          * 1. Use the Handle to locate the sequence in the memory file.
          * 2. Store sequence in variable so it can be returned
-         * 3. Overwrite the sequence in memory file with 0s
-         * 4. Update free block list
-         * 5. Return information about the removed sequence
+         * 3. Update free block list
+         * 4. Return information about the removed sequence
          */
+        byte[] result = getSeq(seqHandle);
+        freeSeq(seqHandle);
+        return result;
+    }
 
-        // The following segment will retrieve the string to be removed.
-        // The string will be converted to a byte array.
-        memory.seek(seqHandle.getFileLocation());
-        int numBytes = byteNeeded(seqHandle.getSequenceLength());
+    /**
+     * This frees the bytes of a sequence without reading them or
+     * overwriting them.  The freed block is scrubbed later if a scrubber
+     * was started.
+     *
+     * @param seqHandle : The handle of the sequence to be removed
+     * @throws IOException
+     */
+    public synchronized void freeSeq(Handle seqHandle) throws IOException
+    {
+        free(seqHandle.getFileLocation(),
+            byteNeeded(seqHandle.getSequenceLength()));
+    }
 
-        byte[] result = new byte[numBytes];
-        memory.read(result);
-
-        // A node to insert as a free block in the doubly linked list is
-        // created.  The node is inserted into a list that should be ordered by
-        // file descriptors.
-        byte[] empty = new byte[numBytes];
-        // The sequence ID and sequence are promptly removed from the
-        // memory file; their bytes are replaced with padding (00) bytes.
-        memory.seek(memory.getFilePointer() - numBytes);
-        memory.write(empty);
-        // freeBlock is the free block that was just inserted.  It will be used
-        // to access neighboring nodes in the doubly linked list.
-        Pair freeBlock = new Pair(seqHandle.getFileLocation(), numBytes);
-
-        int pos = -1;
-        for (int i = 0; i < list.size(); i++) {
-            if (freeBlock.getFileOffset() < list.get(i).getFileOffset()) {
-                pos = i;
-                break;
-            }
+    /**
+     * This frees a block of the memory file without overwriting it.
+     *
+     * @param loc : The file location of the block
+     * @param numBytes : The length of the block in bytes
+     * @throws IOException
+     */
+    private void free(long loc, long numBytes) throws IOException
+    {
+        frees++;
+        if (held != null) {
+            // The block is handed out again after the next checkpoint.
+            held.add(new Pair(loc, numBytes));
+            return;
         }
-        if (pos != -1) {
-            list.add(pos, freeBlock);
+        release(loc, numBytes);
+    }
+
+    /**
+     * This puts a freed block into the free block list.
+     *
+     * @param loc : The file location of the block
+     * @param numBytes : The length of the block in bytes
+     * @throws IOException
+     */
+    private void release(long loc, long numBytes) throws IOException
+    {
+        // The freed block is merged with any neighboring free blocks.
+        // The merged free block starts at the earliest of the blocks.
+        list.free(loc, numBytes);
+        if (unscrubbed != null) {
+            unscrubbed.add(new Pair(loc, numBytes));
         }
-        else {
-            list.add(freeBlock);
-        }
-
-        // The following loops will merge any neighboring free blocks.
-        // The merged free blocks will take on the sequenceID of the
-        // earliest of the blocks.
-        for (int i = 0; i < list.size() - 1; i++) {
-            Pair currBlock = list.get(i);
-            Pair nextBlock = list.get(i + 1);
-            if (currBlock.getFileOffset() + currBlock.getLength() >=
-                nextBlock.getFileOffset()) {
-
-                currBlock.setLength(nextBlock.getFileOffset() -
-                    currBlock.getFileOffset() + nextBlock.getLength());
-                list.remove(nextBlock);
-                i--;
-            }
+
+        trimTail();
+    }
+
+    /**
+     * This holds the blocks freed from now on out of the free block list
+     * until releaseFrees() is called.  A WriteAheadLog needs this: the hash
+     * file on disk may still point at a freed block until the next
+     * checkpoint forces it, so the bytes of the block must not be written
+     * over before then.
+     */
+    public synchronized void holdFrees()
+    {
+        if (held == null) {
+            held = new ArrayList<Pair>();
         }
+    }
 
-        Pair lastFree = list.get(list.size() - 1);
-        if ((lastFree.getFileOffset() +
+    /**
+     * This puts the blocks held since holdFrees() or the last release into
+     * the free block list, once a checkpoint has forced the hash file.
+     * @throws IOException
+     */
+    public synchronized void releaseFrees() throws IOException
+    {
+        if (held == null) {
+            return;
+        }
+        for (Pair block : held) {
+            release(block.getFileOffset(), block.getLength());
+        }
+        held.clear();
+    }
+
+    /**
+     * This forces the memory file to disk, for a checkpoint.
+     * @throws IOException
+     */
+    public synchronized void force() throws IOException
+    {
+        memory.force();
+    }
+
+    /**
+     * This cuts the last free block off the end of the file, if it is at
+     * the end.
+     * @throws IOException
+     */
+    private void trimTail() throws IOException
+    {
+        Pair lastFree = list.last();
+        if (lastFree != null && (lastFree.getFileOffset() +
             lastFree.getLength()) == memory.length()) {
 
             list.remove(lastFree);
             memory.setLength(memory.length() - lastFree.getLength());
         }
+    }
 
-        return result;
+    /**
+     * This gets the file offset of the first free block, before which the
+     * memory file is already packed.
+     * @return The offset of the first free block, or -1 if there are none
+     */
+    public synchronized long firstFree()
+    {
+        Pair first = list.first();
+        return first == null ? -1 : first.getFileOffset();
+    }
+
+    /**
+     * This gets the file offset just past the first free block, where the
+     * sequence that compacting moves next starts.
+     * @return The offset past the first free block, or -1 if there are none
+     */
+    public synchronized long afterFirstFree()
+    {
+        Pair first = list.first();
+        return first == null ? -1
+            : first.getFileOffset() + first.getLength();
+    }
+
+    /**
+     * This is for compacting the memory file.  A sequence that has a free
+     * block right before it is moved down to the start of that block, so
+     * the free space ends up after it, merged with any free block there.
+     * Free space that reaches the end of the file is cut off.
+     *
+     * @param seqHandle : The handle of the sequence to move
+     * @return The handle of the sequence where it is now, which is the same
+     * handle if it did not have to move, or if frees are held and it does
+     * not fit in the free block
+     * @throws IOException
+     */
+    public synchronized Handle slideDown(Handle seqHandle) throws IOException
+    {
+        long loc = seqHandle.getFileLocation();
+        Pair before = list.endingAt(loc);
+        if (before == null) {
+            return seqHandle;
+        }
+        byte[] bytes = getSeq(seqHandle);
+        long to = before.getFileOffset();
+        long gap = before.getLength();
+        if (held != null) {
+            // While frees are held, the old copy is held like a freed block,
+            // so it can only move into a free block it fits in whole.
+            if (bytes.length > gap) {
+                return seqHandle;
+            }
+            list.remove(before);
+            memory.write(bytes, to);
+            if (gap > bytes.length) {
+                list.free(to + bytes.length, gap - bytes.length);
+            }
+            held.add(new Pair(loc, bytes.length));
+            return new Handle(to, seqHandle.getSequenceLength());
+        }
+        list.remove(before);
+        memory.write(bytes, to);
+        list.free(to + bytes.length, gap);
+        if (unscrubbed != null) {
+            // what is left of the old copy that was not written over
+            long stale = Math.max(to + bytes.length, loc);
+            unscrubbed.add(new Pair(stale, loc + bytes.length - stale));
+        }
+        trimTail();
+        return new Handle(to, seqHandle.getSequenceLength());
+    }
+
+    /**
+     * This overwrites with padding (00) bytes whatever is still free of the
+     * blocks freed since the last scrub.  Bytes that were handed out again
+     * in the meantime hold a new sequence and are left alone, and bytes cut
+     * off the end of the file are gone already.
+     * @throws IOException
+     */
+    public synchronized void scrub() throws IOException
+    {
+        if (unscrubbed == null) {
+            return;
+        }
+        for (Pair freed : unscrubbed) {
+            long start = freed.getFileOffset();
+            long end = start + freed.getLength();
+            for (Pair block : list.overlapping(start, end)) {
+                long from = Math.max(start, block.getFileOffset());
+                long to = Math.min(end, block.getFileOffset()
+                    + block.getLength());
+                // a free block may be longer than an array can be, so it is
+                // overwritten a piece at a time
+                while (from < to) {
+                    int piece = (int)Math.min(to - from, SCRUB_BYTES);
+                    memory.write(new byte[piece], from);
+                    from += piece;
+                }
+            }
+        }
+        unscrubbed.clear();
+    }
+
+    /**
+     * This starts a background thread that scrubs freed blocks, for
+     * callers that need removed sequences to be overwritten.  Removes do
+     * not wait for the overwrite; close() scrubs whatever is left.
+     *
+     * @param interval : The number of milliseconds between scrubs
+     */
+    public synchronized void startScrubber(long interval)
+    {
+        if (scrubber != null) {
+            return;
+        }
+        unscrubbed = new ArrayList<Pair>();
+        CountDownLatch stop = new CountDownLatch(1);
+        scrubberStop = stop;
+        scrubber = new Thread(() -> {
+            try {
+                while (!stop.await(interval, TimeUnit.MILLISECONDS)) {
+                    scrub();
+                }
+            }
+            catch (InterruptedException e) {
+                // stopped without a last scrub; close() does that
+            }
+            catch (IOException e) {
+                scrubError = e;
+            }
+        }, "scrubber");
+        scrubber.setDaemon(true);
+        scrubber.start();
     }
 
     /**
      * This is for the print function in the DNAdbase.  It prints all of the
-     * free blocks from the doubly linked list (DLL).
+     * free blocks from the free block list, in file order.
      * @throws IOException
      */
-    public void printFreeBlocks() throws IOException
+    public synchronized void printFreeBlocks() throws IOException
     {
         System.out.print("Free Block List:");
         if (list.size() == 0) {
             System.out.print(" none");
         }
         System.out.println();
-        for (int l = 0; l < list.size(); l++) {
+        int l = 0;
+        for (Pair block : list) {
+            l++;
             System.out.printf("[Block %d] Starting Byte Location: %d, "
-                + "Size %d bytes\n", l + 1, list.get(l).getFileOffset(),
-                list.get(l).getLength());
+                + "Size %d bytes\n", l, block.getFileOffset(),
+                block.getLength());
+        }
+    }
+
+    /**
+     * This prints how fragmented the memory file is, so that allocation
+     * policies can be compared.  The fragmentation is the share of the free
+     * bytes that are not in the largest free block: 0% when all of the free
+     * space is in one block.
+     * @throws IOException
+     */
+    public synchronized void printStats() throws IOException
+    {
+        long free = list.freeBytes();
+        long largest = list.largest();
+        System.out.printf("Memory Statistics: File Size %d bytes, "
+            + "Free %d bytes in %d blocks, Largest Free Block %d bytes\n",
+            memory.length(), free, list.size(), largest);
+        System.out.printf("Fragmentation: %.2f%%, Allocations: %d "
+            + "(%d from free blocks), Removals: %d\n",
+            free == 0 ? 0.0 : 100.0 * (free - largest) / free,
+            allocations, reused, frees);
+    }
+
+    /**
+     * This rebuilds the free block list of a memory file that was opened
+     * again.  Every gap between the sequences that are still in use becomes
+     * a free block, and a gap at the end of the file is cut off, just as
+     * removeSeq() would have left it.
+     *
+     * @param used : The handles of every sequence and sequence ID in use
+     * @throws IOException
+     */
+    public synchronized void rebuildFreeList(List<Handle> used)
+        throws IOException
+    {
+        List<Handle> sorted = new ArrayList<Handle>(used);
+        Collections.sort(sorted, new Comparator<Handle>() {
+            public int compare(Handle a, Handle b) {
+                return Long.compare(a.getFileLocation(),
+                    b.getFileLocation());
+            }
+        });
+
+        list.clear();
+        long end = 0;
+        for (Handle h : sorted) {
+            if (h.getFileLocation() > end) {
+                list.add(new Pair(end, h.getFileLocation() - end));
+            }
+            end = Math.max(end, h.getFileLocation()
+                + byteNeeded(h.getSequenceLength()));
+        }
+        if (memory.length() > end) {
+            memory.setLength(end);
+        }
+    }
+
+    /**
+     * This stops the scrubber, if there is one, scrubs what it has not got
+     * to and closes the memory file.
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+        // The scrubber is stopped before the lock is taken, since it may be
+        // waiting for the lock itself.  It is not interrupted, because an
+        // interrupt in the middle of a write closes a file channel.
+        Thread stopping = scrubber;
+        if (stopping != null) {
+            scrubberStop.countDown();
+            try {
+                stopping.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (scrubError != null) {
+                throw scrubError;
+            }
+            scrub();
+            memory.close();
         }
     }
 
@@ -257,8 +916,8 @@ public class MemoryManager
      * @return numBytes : The number of bytes needed to store the sequence
      */
     private int byteNeeded(int len) {
-        int bitsNeeded = len * 2;
-        int numBytes = (bitsNeeded / 8);
+        long bitsNeeded = len * 2L;
+        int numBytes = (int)(bitsNeeded / 8);
         if (bitsNeeded % 8 != 0) {
             numBytes += 1;
         }
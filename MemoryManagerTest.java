@@ -0,0 +1,240 @@
+import student.TestCase;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Tests the methods of MemoryManager that remove sequences.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class MemoryManagerTest extends TestCase {
+
+    private FileStorage file;
+    private MemoryManager mem;
+
+    /**
+     * Creates a memory manager for an empty memory file.
+     * @throws IOException
+     */
+    public void setUp() throws IOException
+    {
+        file = new FileStorage("manager_mem.bin", false);
+        mem = new MemoryManager(file, new BestFit());
+    }
+
+    /**
+     * Deletes the memory file.
+     */
+    public void tearDown()
+    {
+        new File("manager_mem.bin").delete();
+    }
+
+    /**
+     * Reads a byte of the memory file.
+     * @param loc The file location of the byte
+     * @return The byte
+     * @throws IOException
+     */
+    private byte at(long loc) throws IOException
+    {
+        byte[] read = new byte[1];
+        file.read(read, loc);
+        return read[0];
+    }
+
+    /**
+     * tests that removed sequences are freed without being overwritten, and
+     * that removeSeq still gives back the bytes of the sequence
+     * @throws IOException
+     */
+    public void testRemoveLeavesBytes() throws IOException
+    {
+        Handle a = mem.insertSeq("TTTTTTTT", 32);
+        Handle b = mem.insertSeq("CCCC", 32);
+        mem.insertSeq("GGGG", 32);
+        mem.freeSeq(a);
+        assertEquals(at(0), (byte)0xFF);
+        assertEquals(ASCIIConverter.binToACGT(mem.removeSeq(b), 4), "CCCC");
+        assertEquals(at(2), (byte)0x55);
+
+        // the blocks are merged and handed out again
+        assertEquals(mem.insertSeq("AAAAAAAAAAAA", 32).getFileLocation(), 0);
+        assertEquals(at(0), 0);
+        mem.close();
+    }
+
+    /**
+     * tests that a scrub overwrites the freed bytes that are still free, but
+     * not bytes that were handed out again
+     * @throws IOException
+     */
+    public void testScrub() throws IOException
+    {
+        mem.startScrubber(60000);
+        Handle a = mem.insertSeq("TTTTTTTT", 32);
+        Handle b = mem.insertSeq("CCCC", 32);
+        mem.insertSeq("GGGG", 32);
+        mem.freeSeq(a);
+        mem.freeSeq(b);
+        Handle c = mem.insertSeq("TTTT", 32);
+        assertEquals(c.getFileLocation(), 0);
+        mem.scrub();
+        assertEquals(at(0), (byte)0xFF);
+        assertEquals(at(1), 0);
+        assertEquals(at(2), 0);
+        assertEquals(at(3), (byte)0xAA);
+
+        // close scrubs what is freed after the last scrub
+        mem.freeSeq(c);
+        mem.close();
+        file = new FileStorage("manager_mem.bin", true);
+        assertEquals(at(0), 0);
+        assertEquals(at(3), (byte)0xAA);
+        file.close();
+    }
+
+    /**
+     * tests that a record keeps its sequence right after its ID, and that
+     * it is freed as one block
+     * @throws IOException
+     */
+    public void testRecord() throws IOException
+    {
+        SequenceBundle a = mem.insertRecord("ACGTA", "GATTACA");
+        assertEquals(a.getIDHandle().getFileLocation(), 0);
+        assertEquals(a.getSequenceHandle().getFileLocation(), 2);
+        assertEquals(ASCIIConverter.binToACGT(mem.getSeq(
+            a.getSequenceHandle()), 7), "GATTACA");
+        SequenceBundle b = mem.insertRecord("TT", "CCCC");
+        assertEquals(b.getSequenceHandle().getFileLocation(), 5);
+
+        assertEquals(ASCIIConverter.binToACGT(mem.removeRecord(a), 7),
+            "GATTACA");
+        assertEquals(mem.firstFree(), 0);
+        SequenceBundle c = mem.insertRecord("AAAA", "CCCCGGGG");
+        assertEquals(c.getSequenceHandle().getFileLocation(), 1);
+
+        // handles that are not next to each other are freed one at a time
+        SequenceBundle apart = new SequenceBundle(false, c.getIDHandle(),
+            b.getSequenceHandle());
+        assertEquals(ASCIIConverter.binToACGT(mem.removeRecord(apart), 4),
+            "CCCC");
+        assertEquals(mem.firstFree(), 0);
+        assertEquals(file.length(), 5);
+        assertEquals(ASCIIConverter.binToACGT(mem.getSeq(
+            c.getSequenceHandle()), 8), "CCCCGGGG");
+        mem.close();
+    }
+
+    /**
+     * tests that a sequence longer than one read is written out whole, and
+     * that a record written out as it is removed is freed
+     * @throws IOException
+     */
+    public void testWriteSeq() throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 70001; i++)
+        {
+            builder.append("ACGT".charAt((i * 7 + i / 3) % 4));
+        }
+        String sequence = builder.toString();
+        SequenceBundle a = mem.insertRecord("GATTACA", sequence);
+        SequenceBundle b = mem.insertRecord("T", "");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mem.writeSeq(a.getSequenceHandle(), out);
+        assertEquals(out.toString(), sequence);
+
+        out.reset();
+        mem.writeSeq(b.getSequenceHandle(), out);
+        assertEquals(out.size(), 0);
+        mem.removeRecord(a, out);
+        assertEquals(out.toString(), sequence);
+        assertEquals(mem.firstFree(), 0);
+        mem.close();
+    }
+
+    /**
+     * tests that a sequence read from a stream fills the block taken for
+     * its expected length, hands back what it does not use, and moves to
+     * the end of the file when it outgrows the block
+     * @throws IOException
+     */
+    public void testInsertStream() throws IOException
+    {
+        Handle a = mem.insertSeq("ACGTACGTACGTACGT", 32);
+        mem.insertSeq("T", 32);
+        mem.freeSeq(a);
+
+        Handle b = mem.insertSeq(new StringReader("GGGGCC"), 8);
+        assertEquals(b.getFileLocation(), 0);
+        assertEquals(b.getSequenceLength(), 6);
+        assertEquals(mem.firstFree(), 2);
+        SequenceBundle c = mem.insertRecord("CAT", new StringReader(
+            "GATTACAGATTACA"), 4);
+        assertEquals(c.getIDHandle().getFileLocation(), 5);
+        assertEquals(c.getSequenceHandle().getFileLocation(), 6);
+        assertEquals(ASCIIConverter.binToACGT(mem.getSeq(
+            c.getSequenceHandle()), 14), "GATTACAGATTACA");
+        assertEquals(mem.firstFree(), 2);
+        assertEquals(ASCIIConverter.binToACGT(mem.getSeq(b), 6), "GGGGCC");
+        mem.close();
+    }
+
+    /**
+     * tests that a negative expected length is rejected before any room is
+     * taken for it
+     * @throws IOException
+     */
+    public void testInsertStreamNegative() throws IOException
+    {
+        Handle a = mem.insertSeq("ACGTACGT", 32);
+        mem.insertSeq("T", 32);
+        mem.freeSeq(a);
+        Exception thrown = null;
+        try
+        {
+            mem.insertSeq(new StringReader("GGGG"), -9);
+        }
+        catch (IllegalArgumentException e)
+        {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+        assertEquals(mem.firstFree(), 0);
+        assertEquals(mem.insertSeq("CCCCCCCC", 32).getFileLocation(), 0);
+        assertEquals(file.length(), 3);
+        mem.close();
+    }
+
+    /**
+     * tests that part of a sequence is read at any offset within a byte,
+     * and is cut off at the end of the sequence
+     * @throws IOException
+     */
+    public void testSubsequence() throws IOException
+    {
+        mem.insertSeq("T", 32);
+        String sequence = "GATTACACATGGC";
+        Handle a = mem.insertSeq(sequence, 32);
+        for (int start = 0; start < sequence.length(); start++)
+        {
+            for (int length = 0; length <= 6; length++)
+            {
+                assertEquals(mem.getSubsequence(a, start, length),
+                    sequence.substring(start, Math.min(start + length,
+                        sequence.length())));
+            }
+        }
+        assertNull(mem.getSubsequence(a, 13, 0));
+        assertNull(mem.getSubsequence(a, 14, 1));
+        assertNull(mem.getSubsequence(a, -1, 1));
+        assertNull(mem.getSubsequence(a, 0, -1));
+        mem.close();
+    }
+}
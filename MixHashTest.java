@@ -0,0 +1,58 @@
+import student.TestCase;
+
+/**
+ * Tests the methods of MixHash.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class MixHashTest extends TestCase {
+
+    private MixHash hash;
+
+    /**
+     * Creates a new MixHash for testing.
+     */
+    public void setUp()
+    {
+        hash = new MixHash();
+    }
+
+    /**
+     * tests that hashing the characters and hashing the packed bytes agree
+     */
+    public void testHash64()
+    {
+        String[] keys = {"", "A", "AA", "ACGT", "GATTACA",
+            "ACGTACGTACGTACGTACGTACGTACGTACGTC",
+            "TTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTTT"};
+        for (String key : keys) {
+            assertEquals(MixHash.hash64(key),
+                MixHash.hash64(ASCIIConverter.acgtToBin(key), key.length()));
+        }
+        // trailing A bases must still change the hash
+        assertFalse(MixHash.hash64("A") == MixHash.hash64("AA"));
+        assertFalse(MixHash.hash64("") == MixHash.hash64("A"));
+    }
+
+    /**
+     * tests that hash stays in the table and spreads similar keys out
+     */
+    public void testHash()
+    {
+        boolean[] used = new boolean[64];
+        int distinct = 0;
+        for (int i = 0; i < 64; i++) {
+            String key = "ACGT" + ASCIIConverter.binToACGT(
+                new byte[] {(byte)i}, 4);
+            int home = hash.hash(key, 64);
+            assertTrue(home >= 0 && home < 64);
+            if (!used[home]) {
+                used[home] = true;
+                distinct++;
+            }
+        }
+        assertTrue(distinct > 32);
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.NavigableMap;
+
+/**
+ * NextFit works like FirstFit, except that each search starts where the
+ * last one left off and wraps around to the start of the file. Small
+ * sequences are then spread over the file instead of piling up in the
+ * first few blocks.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class NextFit implements AllocationPolicy {
+
+    private long rover;
+
+    /**
+     * Picks the first free block at or after the end of the last sequence
+     * stored that is big enough, wrapping around to the start of the file.
+     * @param blocks The free blocks, keyed and ordered by file offset
+     * @param bytes The number of bytes needed
+     * @return The next fitting block, or null if there is none
+     */
+    public Pair fit(NavigableMap<Long, Pair> blocks, long bytes)
+    {
+        Pair found = FirstFit.first(blocks.tailMap(rover, true).values(),
+            bytes);
+        if (found == null)
+        {
+            found = FirstFit.first(blocks.headMap(rover, false).values(),
+                bytes);
+        }
+        if (found != null)
+        {
+            rover = found.getFileOffset() + bytes;
+        }
+        return found;
+    }
+
+    /**
+     * Tells the policy about a block that became free.
+     * @param block The free block
+     */
+    public void add(Pair block)
+    {
+        // next fit looks through the blocks in file order every time
+    }
+
+    /**
+     * Tells the policy about a block that is no longer free.
+     * @param block The block
+     */
+    public void remove(Pair block)
+    {
+        // nothing is kept about the block
+    }
+
+    /**
+     * Tells the policy that there are no free blocks left.
+     */
+    public void clear()
+    {
+        rover = 0;
+    }
+}
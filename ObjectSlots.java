@@ -0,0 +1,180 @@
+import java.lang.reflect.Array;
+
+/**
+ * ObjectSlots keeps every entry of a HashTable as the object it was inserted
+ * as, with the fingerprints and homes of the keys in arrays next to them.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ *
+ * @param <V> The value
+ */
+public class ObjectSlots<V extends SequenceBundle> implements SlotArray<V> {
+
+    private Class<V> theClass;
+    private V[] table;
+    private int[] fingerprints;
+    private byte[] homes;
+
+    /**
+     * Creates the given number of empty slots.
+     * @param theClass The class of the V object
+     * @param capacity The number of slots
+     */
+    @SuppressWarnings("unchecked")
+    public ObjectSlots(Class<V> theClass, int capacity)
+    {
+        this.theClass = theClass;
+        table = (V[])Array.newInstance(theClass, capacity);
+        fingerprints = new int[capacity];
+        homes = new byte[capacity];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int capacity()
+    {
+        return table.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SlotArray<V> newSlots(int capacity)
+    {
+        return new ObjectSlots<V>(theClass, capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty(int pos)
+    {
+        return table[pos] == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isTombStone(int pos)
+    {
+        return table[pos] != null && table[pos].getTombStone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getFingerprint(int pos)
+    {
+        return fingerprints[pos];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getHome(int pos)
+    {
+        return homes[pos];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getIDLength(int pos)
+    {
+        return table[pos].getIDHandle().getSequenceLength();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Handle getIDHandle(int pos)
+    {
+        return table[pos].getIDHandle();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public V get(int pos)
+    {
+        return table[pos];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(int pos, V value, int fingerprint, int home)
+    {
+        table[pos] = value;
+        fingerprints[pos] = fingerprint;
+        homes[pos] = (byte)home;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setTombStone(int pos)
+    {
+        table[pos].setTombStone(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clear(int pos)
+    {
+        table[pos] = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SlotArray<V> growingInto()
+    {
+        // the slots do not outlive the program
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMoved(int bucket)
+    {
+        // the slots do not outlive the program
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isMoved(int bucket)
+    {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void discard()
+    {
+        // the arrays are left for the garbage collector
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void force()
+    {
+        // nothing is kept outside of memory
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close()
+    {
+        // nothing is kept outside of memory
+    }
+}
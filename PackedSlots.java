@@ -0,0 +1,203 @@
+/**
+ * PackedSlots keeps the slots of a HashTable in primitive arrays instead of
+ * SequenceBundle and Handle objects. The 64-bit file locations of the
+ * sequence ID and the sequence are kept in long arrays and their lengths in
+ * int arrays, and the state of a slot shares a byte with the home of its
+ * key. A slot takes 29 bytes, where an entry kept as objects takes around
+ * 80, and a scan of the table walks through arrays instead of following
+ * pointers. SequenceBundles are only made when an entry is handed out.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class PackedSlots implements SlotArray<SequenceBundle> {
+
+    /**
+     * The bit of a state byte that is set once a slot holds an entry
+     */
+    private static final int USED = 0x40;
+    /**
+     * The bit of a state byte that is set once the entry is tomb-stoned
+     */
+    private static final int TOMB_STONE = 0x80;
+    /**
+     * The bits of a state byte that hold the home offset
+     */
+    private static final int HOME = 0x3F;
+    private long[] idLocations;
+    private int[] idLengths;
+    private long[] sequenceLocations;
+    private int[] sequenceLengths;
+    private int[] fingerprints;
+    private byte[] states;
+
+    /**
+     * Creates the given number of empty slots.
+     * @param capacity The number of slots
+     */
+    public PackedSlots(int capacity)
+    {
+        idLocations = new long[capacity];
+        idLengths = new int[capacity];
+        sequenceLocations = new long[capacity];
+        sequenceLengths = new int[capacity];
+        fingerprints = new int[capacity];
+        states = new byte[capacity];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int capacity()
+    {
+        return states.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SlotArray<SequenceBundle> newSlots(int capacity)
+    {
+        return new PackedSlots(capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty(int pos)
+    {
+        return (states[pos] & USED) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isTombStone(int pos)
+    {
+        return (states[pos] & TOMB_STONE) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getFingerprint(int pos)
+    {
+        return fingerprints[pos];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getHome(int pos)
+    {
+        return states[pos] & HOME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getIDLength(int pos)
+    {
+        return idLengths[pos];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Handle getIDHandle(int pos)
+    {
+        return new Handle(idLocations[pos], idLengths[pos]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SequenceBundle get(int pos)
+    {
+        if (isEmpty(pos))
+        {
+            return null;
+        }
+        return new SequenceBundle(isTombStone(pos), getIDHandle(pos),
+            new Handle(sequenceLocations[pos], sequenceLengths[pos]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void set(int pos, SequenceBundle value, int fingerprint, int home)
+    {
+        idLocations[pos] = value.getIDHandle().getFileLocation();
+        idLengths[pos] = value.getIDHandle().getSequenceLength();
+        sequenceLocations[pos] = value.getSequenceHandle().getFileLocation();
+        sequenceLengths[pos] = value.getSequenceHandle().getSequenceLength();
+        fingerprints[pos] = fingerprint;
+        states[pos] = (byte)(USED | home);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setTombStone(int pos)
+    {
+        states[pos] = (byte)(states[pos] | TOMB_STONE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clear(int pos)
+    {
+        states[pos] = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SlotArray<SequenceBundle> growingInto()
+    {
+        // the slots do not outlive the program
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMoved(int bucket)
+    {
+        // the slots do not outlive the program
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isMoved(int bucket)
+    {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void discard()
+    {
+        // the arrays are left for the garbage collector
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void force()
+    {
+        // nothing is kept outside of memory
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close()
+    {
+        // nothing is kept outside of memory
+    }
+}
@@ -0,0 +1,87 @@
+import student.TestCase;
+
+/**
+ * Tests the methods of PackedSlots.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class PackedSlotsTest extends TestCase {
+
+    private PackedSlots slots;
+
+    /**
+     * Creates new slots for testing.
+     */
+    public void setUp()
+    {
+        slots = new PackedSlots(64);
+    }
+
+    /**
+     * tests set and get
+     */
+    public void testSet()
+    {
+        assertEquals(slots.capacity(), 64);
+        assertTrue(slots.isEmpty(5));
+        assertNull(slots.get(5));
+
+        SequenceBundle bundle = new SequenceBundle(false, new Handle(100, 7),
+            new Handle(Integer.MAX_VALUE, 123456));
+        slots.set(5, bundle, -42, 31);
+        assertFalse(slots.isEmpty(5));
+        assertFalse(slots.isTombStone(5));
+        assertEquals(slots.getFingerprint(5), -42);
+        assertEquals(slots.getHome(5), 31);
+        assertEquals(slots.getIDLength(5), 7);
+        assertEquals(slots.getIDHandle(5).getFileLocation(), 100);
+
+        SequenceBundle copy = slots.get(5);
+        assertNotSame(copy, bundle);
+        assertEquals(copy.getIDHandle().getFileLocation(), 100);
+        assertEquals(copy.getIDHandle().getSequenceLength(), 7);
+        assertEquals(copy.getSequenceHandle().getFileLocation(),
+            Integer.MAX_VALUE);
+        assertEquals(copy.getSequenceHandle().getSequenceLength(), 123456);
+    }
+
+    /**
+     * tests setTombStone and clear
+     */
+    public void testSetTombStone()
+    {
+        SequenceBundle bundle = new SequenceBundle(false, new Handle(0, 1),
+            new Handle(1, 1));
+        slots.set(0, bundle, 1, 0);
+        slots.setTombStone(0);
+        assertTrue(slots.isTombStone(0));
+        assertFalse(slots.isEmpty(0));
+        assertTrue(slots.get(0).getTombStone());
+        assertEquals(slots.getHome(0), 0);
+
+        slots.set(0, bundle, 1, 3);
+        assertFalse(slots.isTombStone(0));
+        slots.clear(0);
+        assertTrue(slots.isEmpty(0));
+        assertFalse(slots.isTombStone(0));
+        assertTrue(slots.newSlots(32) instanceof PackedSlots);
+    }
+
+    /**
+     * tests that file locations past 4 GB are kept whole
+     */
+    public void testWideLocations()
+    {
+        long far = 5L << 32;
+        slots.set(9, new SequenceBundle(false, new Handle(far + 1, 12),
+            new Handle(far + 4, Integer.MAX_VALUE)), 3, 9);
+        assertEquals(slots.getIDHandle(9).getFileLocation(), far + 1);
+        assertEquals(slots.getIDLength(9), 12);
+        SequenceBundle copy = slots.get(9);
+        assertEquals(copy.getSequenceHandle().getFileLocation(), far + 4);
+        assertEquals(copy.getSequenceHandle().getSequenceLength(),
+            Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,316 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PageCache is a synchronized write-back LRU cache of the pages of another
+ * Storage. Reads of a cached page, such as the sequence IDs read again and
+ * again while probing the hash table, do not go to the file at all. Writes
+ * only change the cached page. There is no thread writing pages out in the
+ * background: a changed page is written back by the access that evicts it,
+ * or when the cache is flushed. Pages are evicted least recently used first.
+ * Every read changes the order of the pages, so unlike the other storages a
+ * PageCache lets one access in at a time, reads included.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class PageCache implements Storage {
+
+    /**
+     * The size of a page unless another is given
+     */
+    static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private Storage file;
+    private int pageSize;
+    private int maxPages;
+    private LinkedHashMap<Long, Page> pages;
+    private long length;
+    private long hits;
+    private long misses;
+
+    /**
+     * A cached page of the file.
+     */
+    private static class Page {
+        private byte[] data;
+        private boolean dirty;
+
+        /**
+         * Creates a page.
+         * @param data The bytes of the page
+         */
+        Page(byte[] data)
+        {
+            this.data = data;
+        }
+    }
+
+    /**
+     * Creates a cache of pages of DEFAULT_PAGE_SIZE bytes.
+     * @param file The storage to cache
+     * @param maxPages The most pages to keep
+     * @throws IOException
+     */
+    public PageCache(Storage file, int maxPages) throws IOException
+    {
+        this(file, DEFAULT_PAGE_SIZE, maxPages);
+    }
+
+    /**
+     * Creates a cache.
+     * @param file The storage to cache
+     * @param pageSize The number of bytes in a page
+     * @param maxPages The most pages to keep
+     * @throws IOException
+     */
+    public PageCache(Storage file, int pageSize, int maxPages)
+        throws IOException
+    {
+        this.file = file;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        length = file.length();
+        // in access order, so the first page is the least recently used
+        pages = new LinkedHashMap<Long, Page>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets a page, reading it from the file if it is not cached.
+     * @param page The number of the page
+     * @param load False if the page is about to be overwritten, so what is
+     * in the file does not matter
+     * @return The page
+     * @throws IOException
+     */
+    private Page page(long page, boolean load) throws IOException
+    {
+        Page cached = pages.get(page);
+        if (cached != null)
+        {
+            hits++;
+            return cached;
+        }
+        misses++;
+        if (pages.size() >= maxPages)
+        {
+            evict();
+        }
+        byte[] data = new byte[pageSize];
+        long start = page * pageSize;
+        if (load && start < length)
+        {
+            file.read(data, start);
+            // what the file holds past the end is not part of it
+            if (start + pageSize > length)
+            {
+                int end = (int)(length - start);
+                Arrays.fill(data, end, pageSize, (byte)0);
+            }
+        }
+        cached = new Page(data);
+        pages.put(page, cached);
+        return cached;
+    }
+
+    /**
+     * Evicts the least recently used page, writing it back if it changed.
+     * @throws IOException
+     */
+    private void evict() throws IOException
+    {
+        Iterator<Map.Entry<Long, Page>> eldest = pages.entrySet().iterator();
+        Map.Entry<Long, Page> entry = eldest.next();
+        writeBack(entry.getKey(), entry.getValue());
+        eldest.remove();
+    }
+
+    /**
+     * Writes a page back to the file if it changed, leaving out any part of
+     * it past the end of the file.
+     * @param page The number of the page
+     * @param cached The page
+     * @throws IOException
+     */
+    private void writeBack(long page, Page cached) throws IOException
+    {
+        long start = page * pageSize;
+        if (!cached.dirty || start >= length)
+        {
+            return;
+        }
+        byte[] data = cached.data;
+        if (start + pageSize > length)
+        {
+            data = Arrays.copyOf(data, (int)(length - start));
+        }
+        file.write(data, start);
+        cached.dirty = false;
+    }
+
+    /**
+     * Fills a byte array from a file location, page by page.
+     * @param result The array to fill
+     * @param loc The file location of the first byte
+     * @throws IOException
+     */
+    public synchronized void read(byte[] result, long loc) throws IOException
+    {
+        long end = Math.min(loc + result.length, length);
+        long pos = loc;
+        while (pos < end)
+        {
+            int offset = (int)(pos % pageSize);
+            int count = (int)Math.min(pageSize - offset, end - pos);
+            System.arraycopy(page(pos / pageSize, true).data, offset, result,
+                (int)(pos - loc), count);
+            pos += count;
+        }
+        if (pos < loc + result.length)
+        {
+            Arrays.fill(result, (int)(pos - loc), result.length,
+                (byte)0);
+        }
+    }
+
+    /**
+     * Writes a byte array into the cached pages of a file location.
+     * @param bytes The bytes to write
+     * @param loc The file location of the first byte
+     * @throws IOException
+     */
+    public synchronized void write(byte[] bytes, long loc) throws IOException
+    {
+        long end = loc + bytes.length;
+        // a write over more pages than are cached evicts its own first pages,
+        // which are only written back if the file already reaches them
+        if (end > length)
+        {
+            length = end;
+        }
+        long pos = loc;
+        while (pos < end)
+        {
+            int offset = (int)(pos % pageSize);
+            int count = (int)Math.min(pageSize - offset, end - pos);
+            Page cached = page(pos / pageSize, count < pageSize);
+            System.arraycopy(bytes, (int)(pos - loc), cached.data, offset,
+                count);
+            cached.dirty = true;
+            pos += count;
+        }
+    }
+
+    /**
+     * Gets the length of the file, counting bytes not yet written back.
+     * @return The number of bytes in the file
+     */
+    public synchronized long length()
+    {
+        return length;
+    }
+
+    /**
+     * Cuts the file off or extends it with 0s. Cached bytes past a new,
+     * shorter end are cleared so they read as 0s if the file grows again.
+     * @param newLength The new length of the file
+     * @throws IOException
+     */
+    public synchronized void setLength(long newLength) throws IOException
+    {
+        if (newLength < length)
+        {
+            Iterator<Map.Entry<Long, Page>> it = pages.entrySet().iterator();
+            while (it.hasNext())
+            {
+                Map.Entry<Long, Page> entry = it.next();
+                long start = entry.getKey() * pageSize;
+                if (start >= newLength)
+                {
+                    it.remove();
+                }
+                else if (start + pageSize > newLength)
+                {
+                    Arrays.fill(entry.getValue().data,
+                        (int)(newLength - start), pageSize, (byte)0);
+                }
+            }
+            if (file.length() > newLength)
+            {
+                file.setLength(newLength);
+            }
+        }
+        length = newLength;
+    }
+
+    /**
+     * Writes every changed page back to the file, in file order, and makes
+     * the file as long as it should be.
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException
+    {
+        List<Map.Entry<Long, Page>> dirty =
+            new ArrayList<Map.Entry<Long, Page>>();
+        for (Map.Entry<Long, Page> entry : pages.entrySet())
+        {
+            if (entry.getValue().dirty)
+            {
+                dirty.add(entry);
+            }
+        }
+        dirty.sort(Map.Entry.comparingByKey());
+        for (Map.Entry<Long, Page> entry : dirty)
+        {
+            writeBack(entry.getKey(), entry.getValue());
+        }
+        if (file.length() != length)
+        {
+            file.setLength(length);
+        }
+    }
+
+    /**
+     * Flushes the cache and forces the file to disk.
+     * @throws IOException
+     */
+    public synchronized void force() throws IOException
+    {
+        flush();
+        file.force();
+    }
+
+    /**
+     * Flushes the cache and closes the file.
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException
+    {
+        flush();
+        file.close();
+    }
+
+    /**
+     * Gets the number of page lookups that found the page cached.
+     * @return The number of hits
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Gets the number of page lookups that had to read the file.
+     * @return The number of misses
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+}
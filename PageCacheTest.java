@@ -0,0 +1,116 @@
+import student.TestCase;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests the methods of PageCache. The reads and writes every Storage has
+ * to get right are tested in StorageTest.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class PageCacheTest extends TestCase {
+
+    private FileStorage file;
+    private PageCache cache;
+
+    /**
+     * Creates a cache of two pages of 8 bytes in front of a memory file.
+     * @throws IOException
+     */
+    public void setUp() throws IOException
+    {
+        file = new FileStorage("cache_mem.bin", false);
+        cache = new PageCache(file, 8, 2);
+    }
+
+    /**
+     * Deletes the memory file.
+     */
+    public void tearDown()
+    {
+        new File("cache_mem.bin").delete();
+    }
+
+    /**
+     * tests that writes stay in the cache until their page is evicted, and
+     * that reads of cached pages do not go to the file
+     * @throws IOException
+     */
+    public void testEviction() throws IOException
+    {
+        cache.write(StorageTest.bytes(1, 12), 2);
+        assertEquals(cache.length(), 14);
+        assertEquals(file.length(), 0);
+
+        byte[] read = new byte[12];
+        cache.read(read, 2);
+        assertTrue(Arrays.equals(read, StorageTest.bytes(1, 12)));
+        assertEquals(cache.getMisses(), 2);
+        assertEquals(cache.getHits(), 2);
+
+        // a third page evicts page 0, the least recently used
+        cache.read(read, 4);
+        cache.write(StorageTest.bytes(50, 4), 16);
+        assertEquals(cache.getMisses(), 3);
+        assertEquals(file.length(), 8);
+        byte[] disk = new byte[8];
+        file.read(disk, 0);
+        assertTrue(Arrays.equals(disk, new byte[] {0, 0, 1, 2, 3, 4, 5, 6}));
+
+        // page 0 is read back in from the file
+        cache.read(disk, 0);
+        assertEquals(cache.getMisses(), 4);
+        assertEquals(disk[7], 6);
+    }
+
+    /**
+     * tests that a write over more pages than the cache holds keeps the
+     * pages it evicts on the way
+     * @throws IOException
+     */
+    public void testLongWrite() throws IOException
+    {
+        cache.write(StorageTest.bytes(1, 30), 4);
+        assertEquals(cache.length(), 34);
+        byte[] read = new byte[30];
+        cache.read(read, 4);
+        assertTrue(Arrays.equals(read, StorageTest.bytes(1, 30)));
+        cache.close();
+        assertEquals(new File("cache_mem.bin").length(), 34);
+    }
+
+    /**
+     * tests that flushing writes back only the pages that changed, in file
+     * order, and keeps them cached, and that closing leaves the file at its
+     * length
+     * @throws IOException
+     */
+    public void testWriteBack() throws IOException
+    {
+        file.write(StorageTest.bytes(1, 16), 0);
+        cache = new PageCache(file, 8, 2);
+        byte[] read = new byte[4];
+        cache.read(read, 0);
+        cache.write(StorageTest.bytes(50, 3), 12);
+        cache.setLength(15);
+
+        // the clean page 0 is left alone, even after the file changes
+        file.write(new byte[] {9}, 0);
+        cache.flush();
+        byte[] disk = new byte[16];
+        file.read(disk, 0);
+        assertEquals(file.length(), 15);
+        assertTrue(Arrays.equals(disk, new byte[] {9, 2, 3, 4, 5, 6, 7, 8, 9,
+            10, 11, 12, 50, 51, 52, 0}));
+        assertEquals(cache.getMisses(), 2);
+        cache.read(read, 12);
+        assertEquals(cache.getMisses(), 2);
+
+        cache.write(StorageTest.bytes(60, 2), 15);
+        cache.close();
+        assertEquals(new File("cache_mem.bin").length(), 17);
+    }
+}
@@ -8,8 +8,8 @@
  */
 public class Pair {
 
-    private int fileOffset;
-    private int length;
+    private long fileOffset;
+    private long length;
 
     /**
      * The Pair object is the record-stored object for Memory Manager's free
@@ -18,7 +18,7 @@ public class Pair {
      * @param offset : The location of the corresponding sequence or sequenceID
      * @param len : The length of the corresponding sequence or sequenceID
      */
-    public Pair(int offset, int len)
+    public Pair(long offset, long len)
     {
         fileOffset = offset;
         length = len;
@@ -28,7 +28,7 @@ public class Pair {
      * This is a getter function for the fileOffset attribute.
      * @return fileOffset : The offset/location of the sequence/sequenceID
      */
-    public int getFileOffset()
+    public long getFileOffset()
     {
         return fileOffset;
     }
@@ -37,7 +37,7 @@ public class Pair {
      * This is a setter function for the fileOffset attribute.
      * @param offset : The location of the sequence/sequenceID
      */
-    public void setFileOffset(int offset)
+    public void setFileOffset(long offset)
     {
         fileOffset = offset;
     }
@@ -46,7 +46,7 @@ public class Pair {
      * This is a getter function for the length attribute.
      * @return length : The length of the sequence/sequenceID
      */
-    public int getLength()
+    public long getLength()
     {
         return length;
     }
@@ -55,7 +55,7 @@ public class Pair {
      * This is a setter function for the length attribute.
      * @param len : The length of the sequence/sequenceID
      */
-    public void setLength(int len)
+    public void setLength(long len)
     {
         length = len;
     }
@@ -0,0 +1,121 @@
+/**
+ * A Reservation is what HashTable.putIfAbsent() hands back. It tells whether
+ * the key can be inserted and, if it can, holds on to the slot that was found
+ * for it, so the entry can be committed to that slot without probing the
+ * bucket again.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class Reservation {
+
+    /**
+     * The outcome of putIfAbsent()
+     */
+    public enum Status {
+        /**
+         * A slot is reserved and the entry can be committed to it
+         */
+        RESERVED,
+        /**
+         * An entry with the same key is already in the table
+         */
+        DUPLICATE,
+        /**
+         * The bucket of the key has no room for it
+         */
+        BUCKET_FULL
+    }
+
+    private Status status;
+    private String key;
+    private int slot;
+    private int home;
+    private int fingerprint;
+    private long stamp;
+
+    /**
+     * Creates a Reservation.
+     * @param status The outcome of putIfAbsent()
+     * @param key The key that was looked for
+     * @param slot The reserved slot, or -1 if none was reserved
+     * @param home The home of the key
+     * @param fingerprint The fingerprint of the key
+     * @param stamp The change count of the bucket of the slot, and how many
+     * times the table had grown, when the slot was found
+     */
+    Reservation(Status status, String key, int slot, int home,
+        int fingerprint, long stamp)
+    {
+        this.status = status;
+        this.key = key;
+        this.slot = slot;
+        this.home = home;
+        this.fingerprint = fingerprint;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Gets the outcome of putIfAbsent().
+     * @return The status of the Reservation
+     */
+    public Status getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * Determines if a slot was reserved.
+     * @return True if the entry can be committed; false otherwise
+     */
+    public boolean isReserved()
+    {
+        return status == Status.RESERVED;
+    }
+
+    /**
+     * Gets the key that was looked for.
+     * @return The key
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * Gets the reserved slot.
+     * @return The reserved slot, or -1 if none was reserved
+     */
+    public int getSlot()
+    {
+        return slot;
+    }
+
+    /**
+     * Gets the home of the key.
+     * @return The home of the key
+     */
+    int getHome()
+    {
+        return home;
+    }
+
+    /**
+     * Gets the fingerprint of the key.
+     * @return The fingerprint of the key
+     */
+    int getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * Gets the change count of the bucket of the slot when it was found.
+     * @return The change count
+     */
+    long getStamp()
+    {
+        return stamp;
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * SFoldHash is the string folding hash that the HashTable has always used.
+ * Every 4 characters of the key are folded into a sum, which is then squared.
+ * The characters are read in place so hashing a key allocates nothing.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class SFoldHash implements HashFunction {
+
+    /**
+     * Hash the given string for the given table capacity.
+     * @param key The string to hash
+     * @param capacity The capacity of the hash table
+     * @return The index to place the object with the given string in the
+     * hash table
+     */
+    public int hash(String key, int capacity)
+    {
+        long sum = 0;
+        long mult = 1;
+        for (int i = 0; i < key.length(); i++) {
+            // the multiplier starts over at the beginning of every group of
+            // 4 characters
+            if (i % 4 == 0) {
+                mult = 1;
+            }
+            sum += key.charAt(i) * mult;
+            mult *= 256;
+        }
+
+        sum = (sum * sum) >> 8;
+        return (int)(Math.abs(sum) % capacity);
+    }
+}
@@ -0,0 +1,39 @@
+import student.TestCase;
+
+/**
+ * Tests the methods of SFoldHash.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class SFoldHashTest extends TestCase {
+
+    private SFoldHash hash;
+
+    /**
+     * Creates a new SFoldHash for testing.
+     */
+    public void setUp()
+    {
+        hash = new SFoldHash();
+    }
+
+    /**
+     * tests that hash places keys where the original sfold did
+     */
+    public void testHash()
+    {
+        assertEquals(hash.hash("A", 32), 16);
+        assertEquals(hash.hash("C", 32), 17);
+        assertEquals(hash.hash("G", 32), 19);
+        assertEquals(hash.hash("T", 32), 27);
+        assertEquals(hash.hash("", 32), 0);
+
+        // keys longer than 4 characters fold every group of 4 characters
+        long sum = ('A' + 'C' * 256L + 'G' * 65536L + 'T' * 16777216L)
+            + ('A' + 'A' * 256L);
+        long expected = Math.abs((sum * sum) >> 8) % 64;
+        assertEquals(hash.hash("ACGTAA", 64), expected);
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+
+/**
+ * SegregatedFit keeps the free blocks in bins by size class: bin i holds the
+ * blocks from 2^i up to 2^(i + 1) - 1 bytes long. A sequence is stored in
+ * the first block of its own class that it fits in, or else in the first
+ * block of the next class that has any. Short sequence IDs and long
+ * sequences then take space from blocks of their own size, and a fit only
+ * looks at blocks of about the right size.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class SegregatedFit implements AllocationPolicy {
+
+    private List<TreeSet<Pair>> bins;
+
+    /**
+     * Creates a SegregatedFit policy with empty bins.
+     */
+    public SegregatedFit()
+    {
+        // the blocks of a bin are kept in file order
+        Comparator<Pair> byOffset = new Comparator<Pair>() {
+            public int compare(Pair a, Pair b) {
+                return Long.compare(a.getFileOffset(), b.getFileOffset());
+            }
+        };
+        bins = new ArrayList<TreeSet<Pair>>(Long.SIZE);
+        for (int i = 0; i < Long.SIZE; i++)
+        {
+            bins.add(new TreeSet<Pair>(byOffset));
+        }
+    }
+
+    /**
+     * Gets the size class of a number of bytes. Empty blocks are put in the
+     * class of 1 byte blocks.
+     * @param bytes The number of bytes
+     * @return The size class
+     */
+    static int sizeClass(long bytes)
+    {
+        return Long.SIZE - 1
+            - Long.numberOfLeadingZeros(Math.max(bytes, 1));
+    }
+
+    /**
+     * Picks the first block of the size class of the sequence that it fits
+     * in, or else the first block of the next class with any blocks.
+     * @param blocks The free blocks, keyed and ordered by file offset
+     * @param bytes The number of bytes needed
+     * @return The fitting block, or null if there is none
+     */
+    public Pair fit(NavigableMap<Long, Pair> blocks, long bytes)
+    {
+        int sizeClass = sizeClass(bytes);
+        Pair found = FirstFit.first(bins.get(sizeClass), bytes);
+        // every block of a higher class is big enough
+        for (int i = sizeClass + 1; found == null && i < bins.size(); i++)
+        {
+            if (!bins.get(i).isEmpty())
+            {
+                found = bins.get(i).first();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tells the policy about a block that became free.
+     * @param block The free block
+     */
+    public void add(Pair block)
+    {
+        bins.get(sizeClass(block.getLength())).add(block);
+    }
+
+    /**
+     * Tells the policy about a block that is no longer free.
+     * @param block The block
+     */
+    public void remove(Pair block)
+    {
+        bins.get(sizeClass(block.getLength())).remove(block);
+    }
+
+    /**
+     * Tells the policy that there are no free blocks left.
+     */
+    public void clear()
+    {
+        for (TreeSet<Pair> bin : bins)
+        {
+            bin.clear();
+        }
+    }
+}
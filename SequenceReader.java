@@ -0,0 +1,155 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * SequenceReader reads one line of a command file as a stream of
+ * characters, so a sequence can be inserted without the whole line being
+ * read in first. Like readLine().trim(), the line ends at \n, \r or \r\n,
+ * and whitespace at its start and end is left out. The command file is
+ * left at the start of the next line.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class SequenceReader extends Reader {
+
+    private BufferedReader in;
+    private char[] block;
+    private int pos;
+    private int end;
+    private boolean lineEnded;
+    private boolean started;
+    // whitespace after the last character handed out, which is handed out
+    // only if more of the line follows it
+    private StringBuilder spaces;
+    private int released;
+    private int next;
+
+    /**
+     * Creates a reader of the line the command file is at.
+     * @param in The command file
+     */
+    public SequenceReader(BufferedReader in)
+    {
+        this.in = in;
+        block = new char[8192];
+        spaces = new StringBuilder();
+        next = -1;
+    }
+
+    /**
+     * Reads characters of the line into an array.
+     * @param cbuf The array to read into
+     * @param off The index in cbuf of the first character
+     * @param len The most characters to read
+     * @return The number of characters read, or -1 at the end of the line
+     * @throws IOException
+     */
+    public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        int n = 0;
+        while (n < len)
+        {
+            if (next >= 0)
+            {
+                if (released < spaces.length())
+                {
+                    cbuf[off + n++] = spaces.charAt(released++);
+                    continue;
+                }
+                cbuf[off + n++] = (char)next;
+                next = -1;
+                spaces.setLength(0);
+                released = 0;
+                continue;
+            }
+            int c = nextChar();
+            if (c < 0)
+            {
+                break;
+            }
+            if (c > ' ')
+            {
+                started = true;
+                next = c;
+            }
+            else if (started)
+            {
+                spaces.append((char)c);
+            }
+        }
+        return n == 0 && len > 0 ? -1 : n;
+    }
+
+    /**
+     * Gets the next character of the line from the block read from the
+     * command file, reading another block if it is used up.
+     * @return The character, or -1 at the end of the line
+     * @throws IOException
+     */
+    private int nextChar() throws IOException
+    {
+        while (pos == end)
+        {
+            if (lineEnded)
+            {
+                return -1;
+            }
+            fill();
+        }
+        return block[pos++];
+    }
+
+    /**
+     * Reads a block of the command file, going back to just past the end
+     * of the line if the block runs past it.
+     * @throws IOException
+     */
+    private void fill() throws IOException
+    {
+        in.mark(block.length);
+        int read = in.read(block, 0, block.length);
+        pos = 0;
+        end = 0;
+        if (read < 0)
+        {
+            lineEnded = true;
+            return;
+        }
+        for (int i = 0; i < read; i++)
+        {
+            if (block[i] == '\n' || block[i] == '\r')
+            {
+                in.reset();
+                in.skip(i + 1);
+                if (block[i] == '\r')
+                {
+                    in.mark(1);
+                    if (in.read() != '\n')
+                    {
+                        in.reset();
+                    }
+                }
+                end = i;
+                lineEnded = true;
+                return;
+            }
+        }
+        end = read;
+    }
+
+    /**
+     * Skips the rest of the line, without closing the command file.
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+        next = -1;
+        while (nextChar() >= 0)
+        {
+            pos = end;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import student.TestCase;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Tests the methods of SequenceReader.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class SequenceReaderTest extends TestCase {
+
+    /**
+     * Reads a line the way an insert does.
+     * @param in The command file
+     * @return The characters of the line
+     * @throws IOException
+     */
+    private String read(BufferedReader in) throws IOException
+    {
+        SequenceReader reader = new SequenceReader(in);
+        StringBuilder line = new StringBuilder();
+        char[] buf = new char[3];
+        int read;
+        while ((read = reader.read(buf, 0, buf.length)) >= 0)
+        {
+            line.append(buf, 0, read);
+        }
+        reader.close();
+        return line.toString();
+    }
+
+    /**
+     * tests that lines are read like readLine().trim() and the command file
+     * is left at the next line
+     * @throws IOException
+     */
+    public void testTrimmedLines() throws IOException
+    {
+        BufferedReader in = new BufferedReader(new StringReader(
+            "  \tAC GT  \r\nGATTACA\rT\n\n  \nCAT"), 4);
+        assertEquals(read(in), "AC GT");
+        assertEquals(read(in), "GATTACA");
+        assertEquals(read(in), "T");
+        assertEquals(read(in), "");
+        assertEquals(read(in), "");
+        assertEquals(in.readLine(), "CAT");
+        assertEquals(read(in), "");
+    }
+
+    /**
+     * tests that closing the reader skips the rest of its line
+     * @throws IOException
+     */
+    public void testClose() throws IOException
+    {
+        BufferedReader in = new BufferedReader(new StringReader(
+            "ACGTACGTACGTACGTACGT\nsearch A\n"), 8);
+        SequenceReader reader = new SequenceReader(in);
+        assertEquals(reader.read(), 'A');
+        assertEquals(reader.skip(4), 4);
+        reader.close();
+        assertEquals(in.readLine(), "search A");
+    }
+}
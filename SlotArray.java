@@ -0,0 +1,141 @@
+import java.io.IOException;
+
+/**
+ * A SlotArray holds the slots of a HashTable. Every slot is either empty,
+ * tomb-stoned or holds an entry, and a slot that has been used also keeps
+ * the fingerprint of its key and the offset of its home within its bucket.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ *
+ * @param <V> The value
+ */
+public interface SlotArray<V extends SequenceBundle> {
+
+    /**
+     * Gets the number of slots.
+     * @return The number of slots
+     */
+    int capacity();
+
+    /**
+     * Creates an empty SlotArray of the same kind as this one.
+     * @param capacity The number of slots
+     * @return The new SlotArray
+     */
+    SlotArray<V> newSlots(int capacity);
+
+    /**
+     * Determines if a slot has never been used or has been emptied.
+     * @param pos The slot
+     * @return True if the slot is empty; false otherwise
+     */
+    boolean isEmpty(int pos);
+
+    /**
+     * Determines if the entry in a slot has been tomb-stoned.
+     * @param pos The slot
+     * @return True if the slot holds a tomb stone; false otherwise
+     */
+    boolean isTombStone(int pos);
+
+    /**
+     * Gets the fingerprint of the key in a slot.
+     * @param pos The slot
+     * @return The fingerprint of the key
+     */
+    int getFingerprint(int pos);
+
+    /**
+     * Gets the offset of the home of the key in a slot within its bucket.
+     * @param pos The slot
+     * @return The offset of the home from the start of the bucket
+     */
+    int getHome(int pos);
+
+    /**
+     * Gets the length of the sequence ID in a slot in characters.
+     * @param pos The slot
+     * @return The length of the sequence ID
+     */
+    int getIDLength(int pos);
+
+    /**
+     * Gets the Handle for the sequence ID in a slot.
+     * @param pos The slot
+     * @return The Handle for the sequence ID
+     */
+    Handle getIDHandle(int pos);
+
+    /**
+     * Gets the entry in a slot.
+     * @param pos The slot
+     * @return The entry in the slot
+     */
+    V get(int pos);
+
+    /**
+     * Puts an entry into a slot.
+     * @param pos The slot
+     * @param value The entry
+     * @param fingerprint The fingerprint of the key of the entry
+     * @param home The offset of the home of the key within its bucket
+     */
+    void set(int pos, V value, int fingerprint, int home);
+
+    /**
+     * Tomb-stones the entry in a slot.
+     * @param pos The slot
+     */
+    void setTombStone(int pos);
+
+    /**
+     * Empties a slot.
+     * @param pos The slot
+     */
+    void clear(int pos);
+
+    /**
+     * Gets the bigger SlotArray these slots were being moved into when they
+     * were last closed, for slots that outlive the program.
+     * @return The bigger slots, or null if the slots were not growing
+     */
+    SlotArray<V> growingInto();
+
+    /**
+     * Records that the entries of a bucket have been moved into the bigger
+     * SlotArray, for slots that outlive the program.
+     * @param bucket The bucket
+     */
+    void setMoved(int bucket);
+
+    /**
+     * Determines if the entries of a bucket were moved into the SlotArray
+     * given by growingInto.
+     * @param bucket The bucket
+     * @return True if the bucket was moved; false otherwise
+     */
+    boolean isMoved(int bucket);
+
+    /**
+     * Lets go of the slots once the HashTable has moved all of their entries
+     * into a bigger SlotArray.
+     * @throws IOException
+     */
+    void discard() throws IOException;
+
+    /**
+     * Writes out anything the slots keep outside of memory and forces it to
+     * disk, keeping the slots open.
+     * @throws IOException
+     */
+    void force() throws IOException;
+
+    /**
+     * Writes out anything the slots keep outside of memory and lets go of
+     * them.
+     * @throws IOException
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,58 @@
+import java.io.IOException;
+
+/**
+ * A Storage holds the bytes of the memory file for a MemoryManager. Reads and
+ * writes name the file location they start at, so a Storage keeps no file
+ * pointer, and reads may run at the same time as each other and as writes.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public interface Storage {
+
+    /**
+     * Fills a byte array from a file location. Bytes past the end of the
+     * file are read as 0s.
+     * @param result The array to fill
+     * @param loc The file location of the first byte
+     * @throws IOException
+     */
+    void read(byte[] result, long loc) throws IOException;
+
+    /**
+     * Writes a byte array at a file location, extending the file if it ends
+     * before the last byte.
+     * @param bytes The bytes to write
+     * @param loc The file location of the first byte
+     * @throws IOException
+     */
+    void write(byte[] bytes, long loc) throws IOException;
+
+    /**
+     * Gets the length of the file.
+     * @return The number of bytes in the file
+     * @throws IOException
+     */
+    long length() throws IOException;
+
+    /**
+     * Cuts the file off or extends it with 0s.
+     * @param length The new length of the file
+     * @throws IOException
+     */
+    void setLength(long length) throws IOException;
+
+    /**
+     * Writes out anything not yet in the file and forces the file to disk,
+     * so a WriteAheadLog can be emptied while the file is still open.
+     * @throws IOException
+     */
+    void force() throws IOException;
+
+    /**
+     * Writes out anything not yet in the file and closes it.
+     * @throws IOException
+     */
+    void close() throws IOException;
+}
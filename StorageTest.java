@@ -0,0 +1,139 @@
+import student.TestCase;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests that every kind of Storage keeps the same contract: a plain file,
+ * a mapped file, a page cache in front of a file and direct buffers. The
+ * chunks and pages are small so that reads and writes cross them. What only
+ * one kind of storage does is tested in its own test.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class StorageTest extends TestCase {
+
+    private static final String[] FILES = {"storage_file.bin",
+        "storage_mapped.bin", "storage_cache.bin"};
+
+    /**
+     * Deletes the memory files.
+     */
+    public void tearDown()
+    {
+        for (String name : FILES)
+        {
+            new File(name).delete();
+        }
+    }
+
+    /**
+     * Makes an array of bytes counting up from a number.
+     * @param from The first byte
+     * @param count The number of bytes
+     * @return The bytes
+     */
+    static byte[] bytes(int from, int count)
+    {
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++)
+        {
+            bytes[i] = (byte)(from + i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Opens an empty storage of each kind.
+     * @return The storages
+     * @throws IOException
+     */
+    private static Storage[] storages() throws IOException
+    {
+        return new Storage[] {new FileStorage(FILES[0], false),
+            new MappedStorage(FILES[1], false, 16),
+            new PageCache(new FileStorage(FILES[2], false), 8, 2),
+            new DirectStorage(16)};
+    }
+
+    /**
+     * tests that writes and reads that cross chunks see the same bytes, and
+     * that bytes before the first write and past the end are read as 0s
+     * @throws IOException
+     */
+    public void testReadWrite() throws IOException
+    {
+        for (Storage storage : storages())
+        {
+            assertEquals(storage.length(), 0);
+            storage.write(bytes(1, 40), 10);
+            assertEquals(storage.length(), 50);
+
+            byte[] read = new byte[40];
+            storage.read(read, 10);
+            assertTrue(Arrays.equals(read, bytes(1, 40)));
+
+            byte[] edges = new byte[12];
+            Arrays.fill(edges, (byte)7);
+            storage.read(edges, 44);
+            assertTrue(Arrays.equals(edges, new byte[] {35, 36, 37, 38, 39,
+                40, 0, 0, 0, 0, 0, 0}));
+            storage.read(edges, 0);
+            assertEquals(edges[9], 0);
+            assertEquals(edges[10], 1);
+            storage.close();
+        }
+    }
+
+    /**
+     * tests that a cut off storage reads as 0s where it grows again
+     * @throws IOException
+     */
+    public void testSetLength() throws IOException
+    {
+        for (Storage storage : storages())
+        {
+            storage.write(bytes(1, 40), 0);
+            storage.setLength(20);
+            assertEquals(storage.length(), 20);
+            storage.setLength(36);
+            assertEquals(storage.length(), 36);
+            byte[] read = new byte[10];
+            storage.read(read, 18);
+            assertTrue(Arrays.equals(read, new byte[] {19, 20, 0, 0, 0, 0, 0,
+                0, 0, 0}));
+            storage.read(read, 30);
+            assertTrue(Arrays.equals(read, new byte[10]));
+            storage.close();
+        }
+    }
+
+    /**
+     * tests that a memory manager stores and removes sequences the same way
+     * in every storage
+     * @throws IOException
+     */
+    public void testMemoryManager() throws IOException
+    {
+        for (Storage storage : storages())
+        {
+            MemoryManager mem = new MemoryManager(storage, new BestFit());
+            Handle a = mem.insertSeq(
+                "AAAACCCCGGGGTTTTAAAACCCCGGGGTTTTAAAACCCCGG", 32);
+            Handle b = mem.insertSeq("GATTACA", 32);
+            assertEquals(b.getFileLocation(), 11);
+            assertEquals(ASCIIConverter.binToACGT(mem.getSeq(b), 7),
+                "GATTACA");
+            mem.removeSeq(b);
+            assertEquals(storage.length(), 11);
+            assertEquals(ASCIIConverter.binToACGT(mem.getSeq(a), 42),
+                "AAAACCCCGGGGTTTTAAAACCCCGGGGTTTTAAAACCCCGG");
+            mem.close();
+        }
+        assertEquals(new File(FILES[0]).length(), 11);
+        assertEquals(new File(FILES[1]).length(), 11);
+        assertEquals(new File(FILES[2]).length(), 11);
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * WriteAheadLog records the inserts and removes made to a persisted table
+ * in a file that is only ever appended to, before they are made to the hash
+ * file and memory file. Each record is handed to the system as it is added,
+ * but the log is not forced to disk after every record: records are forced
+ * a batch at a time, once enough of them have piled up or a record has
+ * waited long enough, which a background thread checks even when no
+ * records come.
+ *
+ * The hash file and memory file are not held back until the batch of their
+ * records is forced. The log therefore recovers from a crash of the
+ * program, since the system still writes out all that the program handed
+ * it, but not when a PageCache in front of the memory file loses its dirty
+ * pages with the program. After a crash of the system itself, the files
+ * may hold part of a change from the last batches, such as a slot whose
+ * bytes never reached the memory file, which replay takes as already made;
+ * only what was in the files at the last checkpoint is sure to survive.
+ *
+ * The log is emptied at a checkpoint, which must come only after the hash
+ * file and memory file have been forced to disk, and when the table is
+ * closed cleanly. Otherwise the records left in it are handed back by
+ * recovered() the next time it is opened, to be made again on top of the
+ * files as they were forced at the last checkpoint, with any of the later
+ * changes that reached the disk. Making a record again must do nothing if it
+ * was already made, and the bytes of a freed sequence must not be written
+ * over until the next checkpoint, so that a slot on disk that still points
+ * at them finds them. Each record ends with a CRC32, and a record that was
+ * cut off by the crash is dropped.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class WriteAheadLog {
+
+    /**
+     * The type byte of an insert record
+     */
+    static final byte INSERT = 1;
+    /**
+     * The type byte of a remove record
+     */
+    static final byte REMOVE = 2;
+    /**
+     * The size the log may grow to before checkpointDue() says so
+     */
+    static final long CHECKPOINT_BYTES = 1 << 22;
+    private File file;
+    private FileOutputStream stream;
+    private DataOutputStream out;
+    private int batchSize;
+    private long window;
+    private int unforced;
+    private long lastForce;
+    private long forces;
+    private long length;
+    private List<String[]> recovered;
+    private Thread flusher;
+    private CountDownLatch flusherStop;
+    private volatile IOException flushError;
+
+    /**
+     * Opens the log in the given file, reading the records left in it.
+     * @param filename The name of the log file
+     * @param batchSize The most records that wait to be forced to disk
+     * @param window The most milliseconds a record waits to be forced to
+     * disk, checked as records are added and by a background thread
+     * @throws IOException
+     */
+    public WriteAheadLog(String filename, int batchSize, long window)
+        throws IOException
+    {
+        file = new File(filename);
+        this.batchSize = batchSize;
+        this.window = window;
+        recovered = new ArrayList<String[]>();
+        long good = read();
+        if (file.length() > good)
+        {
+            // the end of the last record never made it to the disk
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            raf.setLength(good);
+            raf.close();
+        }
+        length = good;
+        stream = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        lastForce = System.currentTimeMillis();
+
+        CountDownLatch stop = new CountDownLatch(1);
+        flusherStop = stop;
+        flusher = new Thread(() -> {
+            try {
+                while (!stop.await(window, TimeUnit.MILLISECONDS)) {
+                    flushIfDue();
+                }
+            }
+            catch (InterruptedException e) {
+                // stopped; close() forces what is left
+            }
+            catch (IOException e) {
+                flushError = e;
+            }
+        }, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Forces the records added so far if the oldest of them has waited
+     * for the window.
+     * @throws IOException
+     */
+    private synchronized void flushIfDue() throws IOException
+    {
+        if (unforced > 0
+            && System.currentTimeMillis() - lastForce >= window)
+        {
+            commit();
+        }
+    }
+
+    /**
+     * Reads the whole records at the start of the log into recovered.
+     * @return The number of bytes taken up by the whole records
+     * @throws IOException
+     */
+    private long read() throws IOException
+    {
+        if (!file.isFile())
+        {
+            return 0;
+        }
+        long good = 0;
+        long size = file.length();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new FileInputStream(file)));
+        try
+        {
+            while (true)
+            {
+                byte type = in.readByte();
+                if (type != INSERT && type != REMOVE)
+                {
+                    break;
+                }
+                int idLength = in.readInt();
+                int seqLength = type == INSERT ? in.readInt() : 0;
+                // the lengths are checked against what is left of the log
+                // before anything is allocated for them
+                long left = size - good - (type == INSERT ? 9 : 5) - 4;
+                if (idLength < 0 || seqLength < 0
+                    || packed(idLength) + packed(seqLength) > left)
+                {
+                    break;
+                }
+                byte[] id = new byte[(int)packed(idLength)];
+                in.readFully(id);
+                byte[] seq = new byte[(int)packed(seqLength)];
+                in.readFully(seq);
+                int crc = in.readInt();
+                if (crc != crc(record(type, idLength, seqLength, id, seq)))
+                {
+                    break;
+                }
+                String key = ASCIIConverter.binToACGT(id, idLength);
+                if (type == INSERT)
+                {
+                    recovered.add(new String[] {"insert", key,
+                        ASCIIConverter.binToACGT(seq, seqLength)});
+                }
+                else
+                {
+                    recovered.add(new String[] {"remove", key});
+                }
+                good += 1 + 4 + (type == INSERT ? 4 : 0) + id.length
+                    + seq.length + 4;
+            }
+        }
+        catch (EOFException e)
+        {
+            // the log ends here, or in the middle of a record
+        }
+        finally
+        {
+            in.close();
+        }
+        return good;
+    }
+
+    /**
+     * Gets the number of packed bytes of a sequence of the given length.
+     * @param length The length of the sequence in characters
+     * @return The number of bytes
+     */
+    private static long packed(int length)
+    {
+        return (length * 2L + 7) / 8;
+    }
+
+    /**
+     * Lays out a record, all but its CRC32.
+     * @param type INSERT or REMOVE
+     * @param idLength The length of the sequence ID in characters
+     * @param seqLength The length of the sequence in characters
+     * @param id The packed sequence ID
+     * @param seq The packed sequence, empty for a remove
+     * @return The bytes of the record
+     * @throws IOException
+     */
+    private static byte[] record(byte type, int idLength, int seqLength,
+        byte[] id, byte[] seq) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeByte(type);
+        record.writeInt(idLength);
+        if (type == INSERT)
+        {
+            record.writeInt(seqLength);
+        }
+        record.write(id);
+        record.write(seq);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Computes the CRC32 of a record.
+     * @param record The bytes of the record
+     * @return The CRC32
+     */
+    private static int crc(byte[] record)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int)crc.getValue();
+    }
+
+    /**
+     * Gets the records that were in the log when it was opened, in the
+     * order they were added: {"insert", id, sequence} or {"remove", id}.
+     * @return The records
+     */
+    public List<String[]> recovered()
+    {
+        return recovered;
+    }
+
+    /**
+     * Adds an insert to the log.
+     * @param id The sequence ID
+     * @param sequence The sequence
+     * @throws IOException
+     */
+    public synchronized void logInsert(String id, String sequence)
+        throws IOException
+    {
+        append(record(INSERT, id.length(), sequence.length(),
+            ASCIIConverter.acgtToBin(id), ASCIIConverter.acgtToBin(sequence)));
+    }
+
+    /**
+     * Adds a remove to the log.
+     * @param id The sequence ID
+     * @throws IOException
+     */
+    public synchronized void logRemove(String id) throws IOException
+    {
+        append(record(REMOVE, id.length(), 0, ASCIIConverter.acgtToBin(id),
+            new byte[0]));
+    }
+
+    /**
+     * Appends a record and its CRC32, handing it to the system before the
+     * change it records is made, and forcing the batch to disk if it is
+     * full or has waited long enough.
+     * @param record The bytes of the record
+     * @throws IOException
+     */
+    private void append(byte[] record) throws IOException
+    {
+        if (flushError != null)
+        {
+            throw flushError;
+        }
+        out.write(record);
+        out.writeInt(crc(record));
+        out.flush();
+        length += record.length + 4;
+        unforced++;
+        if (unforced >= batchSize
+            || System.currentTimeMillis() - lastForce >= window)
+        {
+            commit();
+        }
+    }
+
+    /**
+     * Forces every record added so far to disk.
+     * @throws IOException
+     */
+    public synchronized void commit() throws IOException
+    {
+        out.flush();
+        if (unforced > 0)
+        {
+            stream.getChannel().force(false);
+            forces++;
+            unforced = 0;
+        }
+        lastForce = System.currentTimeMillis();
+    }
+
+    /**
+     * Empties the log once the hash file and memory file hold everything in
+     * it.
+     * @throws IOException
+     */
+    public synchronized void checkpoint() throws IOException
+    {
+        out.flush();
+        stream.getChannel().truncate(0);
+        stream.getChannel().force(false);
+        unforced = 0;
+        length = 0;
+        recovered.clear();
+    }
+
+    /**
+     * Determines if the log has grown to CHECKPOINT_BYTES, so the table
+     * should force its files and empty it.
+     * @return True if a checkpoint is due; false otherwise
+     */
+    public synchronized boolean checkpointDue()
+    {
+        return length >= CHECKPOINT_BYTES;
+    }
+
+    /**
+     * Gets the number of times records were forced to disk.
+     * @return The number of forces
+     */
+    public synchronized long getForces()
+    {
+        return forces;
+    }
+
+    /**
+     * Stops the background thread, forces what is left to disk and closes
+     * the log.
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+        // the thread is stopped before the lock is taken, since it may be
+        // waiting for the lock itself
+        flusherStop.countDown();
+        try
+        {
+            flusher.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this)
+        {
+            if (flushError != null)
+            {
+                throw flushError;
+            }
+            commit();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import student.TestCase;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the methods of WriteAheadLog.
+ *
+ * @author Ryan Maxey <ryanmaxey6>
+ * @author Hannah Nguyen <hanguyen>
+ * @version December 11, 2020
+ */
+public class WriteAheadLogTest extends TestCase {
+
+    private WriteAheadLog log;
+
+    /**
+     * Opens an empty log that is forced every 2 records.
+     * @throws IOException
+     */
+    public void setUp() throws IOException
+    {
+        new File("test.wal").delete();
+        log = new WriteAheadLog("test.wal", 2, 60000);
+    }
+
+    /**
+     * Deletes the log file.
+     */
+    public void tearDown()
+    {
+        new File("test.wal").delete();
+        new File("wal_hash.bin").delete();
+        new File("wal_mem.bin").delete();
+    }
+
+    /**
+     * tests that records are forced a batch at a time and read back in order
+     * when the log is opened again without being emptied
+     * @throws IOException
+     */
+    public void testRecover() throws IOException
+    {
+        assertTrue(log.recovered().isEmpty());
+        log.logInsert("ACGT", "GATTACA");
+        assertEquals(log.getForces(), 0);
+        log.logRemove("CAT");
+        assertEquals(log.getForces(), 1);
+        log.logInsert("TTTTT", "");
+        log.close();
+        assertEquals(log.getForces(), 2);
+
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        List<String[]> records = log.recovered();
+        assertEquals(records.size(), 3);
+        assertEquals(records.get(0)[0], "insert");
+        assertEquals(records.get(0)[1], "ACGT");
+        assertEquals(records.get(0)[2], "GATTACA");
+        assertEquals(records.get(1)[0], "remove");
+        assertEquals(records.get(1)[1], "CAT");
+        assertEquals(records.get(2)[1], "TTTTT");
+        assertEquals(records.get(2)[2], "");
+        log.close();
+    }
+
+    /**
+     * tests that a record cut off at the end of the log, or with a bad
+     * CRC32, is dropped along with what comes after it
+     * @throws IOException
+     */
+    public void testTornRecord() throws IOException
+    {
+        log.logInsert("ACGT", "GATTACA");
+        log.logInsert("GGGG", "CCCC");
+        log.close();
+        long whole = new File("test.wal").length();
+
+        RandomAccessFile raf = new RandomAccessFile("test.wal", "rw");
+        raf.setLength(whole - 2);
+        raf.close();
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        assertEquals(log.recovered().size(), 1);
+        log.logRemove("ACGT");
+        log.close();
+
+        // the cut off record was dropped, so the remove follows the insert
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        assertEquals(log.recovered().size(), 2);
+        assertEquals(log.recovered().get(1)[0], "remove");
+        log.close();
+
+        raf = new RandomAccessFile("test.wal", "rw");
+        raf.seek(6);
+        raf.writeByte(0x55);
+        raf.close();
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        assertTrue(log.recovered().isEmpty());
+        assertEquals(new File("test.wal").length(), 0);
+        log.close();
+    }
+
+    /**
+     * tests that a record whose lengths run past the end of the log, or
+     * whose type is unknown, is dropped without reading it in
+     * @throws IOException
+     */
+    public void testBadLengths() throws IOException
+    {
+        log.logInsert("ACGT", "GATTACA");
+        log.close();
+        RandomAccessFile raf = new RandomAccessFile("test.wal", "rw");
+        raf.seek(raf.length());
+        raf.writeByte(WriteAheadLog.INSERT);
+        raf.writeInt(Integer.MAX_VALUE);
+        raf.writeInt(Integer.MAX_VALUE);
+        raf.writeInt(0);
+        raf.close();
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        assertEquals(log.recovered().size(), 1);
+        log.close();
+
+        raf = new RandomAccessFile("test.wal", "rw");
+        raf.seek(0);
+        raf.writeByte(7);
+        raf.close();
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        assertTrue(log.recovered().isEmpty());
+        log.close();
+    }
+
+    /**
+     * tests that a record is forced once it has waited for the window,
+     * even if no other record comes
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void testIdleFlush() throws IOException, InterruptedException
+    {
+        log.close();
+        log = new WriteAheadLog("test.wal", 100, 20);
+        log.logInsert("ACGT", "GATTACA");
+        for (int i = 0; i < 100 && log.getForces() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(log.getForces(), 1);
+        log.close();
+    }
+
+    /**
+     * tests that the log is made again on top of the files as they were
+     * forced at the last checkpoint, when only some of the later changes
+     * reached the disk: here the memory file got a sequence written after a
+     * remove, while the hash file got neither of them
+     * @throws IOException
+     */
+    public void testCrash() throws IOException
+    {
+        MemoryManager mem = new MemoryManager(new FileStorage("wal_mem.bin",
+            false), new BestFit());
+        HashTable<String, SequenceBundle> table =
+            new HashTable<String, SequenceBundle>(new MappedSlots(
+                "wal_hash.bin", 64, new SFoldHash(), false), mem,
+                new SFoldHash());
+        mem.holdFrees();
+        log.logInsert("ACGT", "GATTACA");
+        assertTrue(table.insert("ACGT", mem.insertRecord("ACGT",
+            "GATTACA")));
+        log.logInsert("GGGG", "CC");
+        assertTrue(table.insert("GGGG", mem.insertRecord("GGGG", "CC")));
+        DNAdbase.checkpoint(table, mem, log);
+        Path hash = Paths.get("wal_hash.bin");
+        byte[] forced = Files.readAllBytes(hash);
+
+        // the new record fits in the one removed, but is not put there
+        log.logRemove("ACGT");
+        mem.freeRecord(table.remove("ACGT"));
+        log.logInsert("CCCC", "TTTTTTT");
+        SequenceBundle added = mem.insertRecord("CCCC", "TTTTTTT");
+        assertTrue(added.getIDHandle().getFileLocation() > 0);
+        assertTrue(table.insert("CCCC", added));
+        log.commit();
+        Files.write(hash, forced);
+
+        mem = new MemoryManager(new FileStorage("wal_mem.bin", true),
+            new BestFit());
+        table = new HashTable<String, SequenceBundle>(new MappedSlots(
+            "wal_hash.bin", 64, new SFoldHash(), true), mem,
+            new SFoldHash());
+        List<Handle> used = new ArrayList<Handle>();
+        for (SequenceBundle entry : table.entries()) {
+            used.add(entry.getIDHandle());
+            used.add(entry.getSequenceHandle());
+        }
+        mem.rebuildFreeList(used);
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        assertEquals(log.recovered().size(), 2);
+        DNAdbase.replay(log, table, mem, true);
+
+        assertNull(table.get("ACGT"));
+        assertEquals(table.size(), 2);
+        Handle seq = table.get("CCCC").getSequenceHandle();
+        assertEquals(ASCIIConverter.binToACGT(mem.getSeq(seq), 7),
+            "TTTTTTT");
+        seq = table.get("GGGG").getSequenceHandle();
+        assertEquals(ASCIIConverter.binToACGT(mem.getSeq(seq), 2), "CC");
+        table.close();
+        mem.close();
+        log.close();
+    }
+
+    /**
+     * tests that a checkpoint empties the log
+     * @throws IOException
+     */
+    public void testCheckpoint() throws IOException
+    {
+        log.logInsert("ACGT", "GATTACA");
+        log.checkpoint();
+        log.logRemove("ACGT");
+        log.close();
+        log = new WriteAheadLog("test.wal", 2, 60000);
+        assertEquals(log.recovered().size(), 1);
+        assertEquals(log.recovered().get(0)[0], "remove");
+        log.close();
+    }
+}